@@ -0,0 +1,370 @@
+package dev.eddycyu.collection;
+
+import dev.eddycyu.random.Generator;
+import dev.eddycyu.search.LongestCommonPrefix;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Radix tree (compact prefix tree, Patricia trie) over a static set of
+ * strings.
+ * <p>
+ * Given the keys in sorted order, answer prefix queries: all the keys that
+ * start with a prefix, the longest key that is a prefix of a query, and the
+ * longest common prefix of any subset of the keys.
+ * <p>
+ * Each node of a radix tree stands for the prefix shared by the keys below
+ * it, and a node with a single child is merged into its child, so there are
+ * fewer than 2N nodes for N keys. Because the keys are sorted, the keys below
+ * a node are a contiguous range of the key array, and the prefix of the node
+ * is the longest common prefix of the first and last key of the range.
+ * Nothing else has to be stored: a node is five ints in flat arrays (range
+ * of keys, prefix length, first child and number of children) instead of an
+ * object with a label, a map of children and the headers that come with
+ * them. The nodes are numbered in breadth-first order, so the children of a
+ * node are consecutive and sorted by their first character, and a child is
+ * found with a binary search.
+ * <ul>
+ * <li>{@link #keysWithPrefix(String)} walks down to the node that covers the
+ * prefix and returns its range of keys as a view; nothing is copied.</li>
+ * <li>{@link #longestPrefixOf(String)} walks down as far as the query allows,
+ * remembering the last node that is a key.</li>
+ * <li>{@link #lcpLength(int...)} only needs the smallest and largest key of
+ * the subset, whose common prefix is shared by every key between them.</li>
+ * </ul>
+ * <p>
+ * https://en.wikipedia.org/wiki/Radix_tree
+ * https://algs4.cs.princeton.edu/52trie/
+ * <p>
+ * Time Complexity: O(N log N + total key length) to bulk load; O(M log R)
+ * to find the node of a prefix of length M, where R is the alphabet size
+ * Space Complexity: O(N)
+ */
+public class RadixTree {
+
+    private static final int ROOT = 0;
+
+    private final String[] keys;
+    private final int[] lo;
+    private final int[] hi;
+    private final int[] depth;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int nodeCount;
+
+    private RadixTree(String[] keys) {
+        this.keys = keys;
+        final int capacity = Math.max(1, 2 * keys.length);
+        lo = new int[capacity];
+        hi = new int[capacity];
+        depth = new int[capacity];
+        childStart = new int[capacity];
+        childCount = new int[capacity];
+
+        // the root covers all the keys; each node is split into children by
+        // the character that follows its prefix, in breadth-first order
+        int count = 1;
+        lo[ROOT] = 0;
+        hi[ROOT] = keys.length;
+        depth[ROOT] = keys.length == 0 ? 0 : LongestCommonPrefix.lcpLength(keys[0], keys[keys.length - 1]);
+        for (int node = 0; node < count; node++) {
+            childStart[node] = count;
+            final int d = depth[node];
+            int first = lo[node];
+            final int last = hi[node];
+            if (last - first <= 1) {
+                continue;
+            }
+            // a key that ends at this node sorts before all the others
+            if (keys[first].length() == d) {
+                first++;
+            }
+            while (first < last) {
+                final int end = groupEnd(keys, first, last, d);
+                lo[count] = first;
+                hi[count] = end;
+                depth[count] = end - first == 1
+                        ? keys[first].length()
+                        : LongestCommonPrefix.lcpLength(keys[first], keys[end - 1]);
+                count++;
+                first = end;
+            }
+            childCount[node] = count - childStart[node];
+        }
+        nodeCount = count;
+    }
+
+    // end of the range of keys from first that have the same character at d
+    private static int groupEnd(String[] keys, int first, int last, int d) {
+        final char c = keys[first].charAt(d);
+        int left = first + 1;
+        int right = last;
+        while (left < right) {
+            final int mid = (left + right) >>> 1;
+            if (keys[mid].charAt(d) == c) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Build a radix tree from keys in ascending order; duplicate keys are
+     * kept once.
+     *
+     * @param sortedKeys keys in ascending order
+     * @return radix tree of the keys
+     * @throws IllegalArgumentException if the keys are not sorted
+     */
+    public static RadixTree fromSorted(String[] sortedKeys) {
+        int distinct = 0;
+        final String[] keys = new String[sortedKeys.length];
+        for (String key : sortedKeys) {
+            if (distinct > 0) {
+                final int result = keys[distinct - 1].compareTo(key);
+                if (result > 0) {
+                    throw new IllegalArgumentException("keys are not sorted at \"" + key + "\"");
+                }
+                if (result == 0) {
+                    continue;
+                }
+            }
+            keys[distinct++] = key;
+        }
+        return new RadixTree(Arrays.copyOf(keys, distinct));
+    }
+
+    /**
+     * @return number of keys
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param rank rank of a key, in [0, size)
+     * @return the key with the given rank in ascending order
+     */
+    public String key(int rank) {
+        return keys[rank];
+    }
+
+    /**
+     * @param key key to look for
+     * @return rank of key in ascending order; -1 if it is not a key
+     */
+    public int rank(String key) {
+        final int node = find(key);
+        if (node == -1 || depth[node] != key.length() || keys[lo[node]].length() != key.length()) {
+            return -1;
+        }
+        return lo[node];
+    }
+
+    /**
+     * @param prefix prefix to look for
+     * @return all keys that start with prefix, in ascending order, as an
+     * unmodifiable view of the keys
+     */
+    public List<String> keysWithPrefix(String prefix) {
+        final int node = find(prefix);
+        if (node == -1) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(keys).subList(lo[node], hi[node]));
+    }
+
+    /**
+     * @param prefix prefix to look for
+     * @return number of keys that start with prefix
+     */
+    public int countWithPrefix(String prefix) {
+        final int node = find(prefix);
+        return node == -1 ? 0 : hi[node] - lo[node];
+    }
+
+    // the highest node whose keys all start with prefix; -1 if no key does
+    private int find(String prefix) {
+        if (keys.length == 0) {
+            return -1;
+        }
+        int node = ROOT;
+        while (depth[node] < prefix.length()) {
+            node = child(node, prefix.charAt(depth[node]));
+            if (node == -1) {
+                return -1;
+            }
+        }
+        // only the branching characters have been compared so far
+        return keys[lo[node]].startsWith(prefix) ? node : -1;
+    }
+
+    // child of node whose prefix continues with c; -1 if there is none
+    private int child(int node, char c) {
+        final int d = depth[node];
+        int left = childStart[node];
+        int right = left + childCount[node] - 1;
+        while (left <= right) {
+            final int mid = (left + right) >>> 1;
+            final char m = keys[lo[mid]].charAt(d);
+            if (m < c) {
+                left = mid + 1;
+            } else if (m > c) {
+                right = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param query string to look up
+     * @return longest key that is a prefix of query; null if there is none
+     */
+    public String longestPrefixOf(String query) {
+        if (keys.length == 0) {
+            return null;
+        }
+        String longest = null;
+        int matched = 0;
+        int node = ROOT;
+        while (true) {
+            final String first = keys[lo[node]];
+            final int d = depth[node];
+            // the characters between the parent's prefix and this node's
+            if (d > query.length() || !first.regionMatches(matched, query, matched, d - matched)) {
+                return longest;
+            }
+            matched = d;
+            if (first.length() == d) {
+                longest = first;
+            }
+            if (d == query.length()) {
+                return longest;
+            }
+            node = child(node, query.charAt(d));
+            if (node == -1) {
+                return longest;
+            }
+        }
+    }
+
+    /**
+     * @param ranks ranks of the keys in the subset; at least one
+     * @return length of the longest prefix of ALL the keys in the subset
+     */
+    public int lcpLength(int... ranks) {
+        if (ranks.length == 0) {
+            throw new IllegalArgumentException("subset must not be empty");
+        }
+        // every key between the smallest and largest key of the subset in
+        // sorted order shares their common prefix
+        int min = ranks[0];
+        int max = ranks[0];
+        for (int rank : ranks) {
+            min = Math.min(min, rank);
+            max = Math.max(max, rank);
+        }
+        return LongestCommonPrefix.lcpLength(keys[min], keys[max]);
+    }
+
+    /**
+     * Show prefix queries on a few words, or benchmark against a linear scan
+     * and TreeSet.subSet when a size is given.
+     *
+     * @param args [0] number of random keys to benchmark with
+     */
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            benchmark(Integer.parseInt(args[0]));
+            return;
+        }
+        final String[] words = {"she", "sells", "sea", "shells", "by", "the", "sea", "shore", "shell"};
+        final String[] sorted = words.clone();
+        Arrays.sort(sorted);
+        final RadixTree tree = fromSorted(sorted);
+        System.out.println("keys: " + tree.keysWithPrefix(""));
+        System.out.println("nodes: " + tree.nodeCount());
+        System.out.println("keysWithPrefix(\"sh\"): " + tree.keysWithPrefix("sh"));
+        System.out.println("keysWithPrefix(\"shel\"): " + tree.keysWithPrefix("shel"));
+        System.out.println("longestPrefixOf(\"shellsort\"): " + tree.longestPrefixOf("shellsort"));
+        System.out.println("longestPrefixOf(\"shelter\"): " + tree.longestPrefixOf("shelter"));
+        System.out.println("lcp of shell, shells, shore: "
+                + tree.lcpLength(tree.rank("shell"), tree.rank("shells"), tree.rank("shore")));
+    }
+
+    private static void benchmark(int N) {
+        final Random random = new Random(42);
+        final String[] hosts = {"api", "cdn", "docs", "mail", "shop", "www"};
+        final String[] tails = Generator.randomStrings(N, 12, "abcdefghijklmnopqrstuvwxyz0123456789/");
+        final String[] sorted = new String[N];
+        for (int i = 0; i < N; i++) {
+            sorted[i] = "https://" + hosts[random.nextInt(hosts.length)] + ".example.com/" + tails[i];
+        }
+        Arrays.sort(sorted);
+
+        long start = System.nanoTime();
+        final RadixTree tree = fromSorted(sorted);
+        System.out.printf("N=%d: built %d nodes in %d ms (%d bytes of node arrays)%n", N, tree.nodeCount(),
+                (System.nanoTime() - start) / 1_000_000, 5L * 4 * tree.lo.length);
+        final NavigableSet<String> set = new TreeSet<>(Arrays.asList(sorted));
+
+        // prefixes of random keys of a few lengths, like typed queries
+        final String[] queries = new String[1000];
+        for (int i = 0; i < queries.length; i++) {
+            final String key = sorted[random.nextInt(N)];
+            queries[i] = key.substring(0, Math.min(key.length(), 18 + random.nextInt(6)));
+        }
+        for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            long byTree = 0;
+            for (String query : queries) {
+                byTree += tree.countWithPrefix(query);
+            }
+            final long treeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long bySet = 0;
+            for (String query : queries) {
+                bySet += set.subSet(query, true, query + Character.MAX_VALUE, false).size();
+            }
+            final long setTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long byScan = 0;
+            for (int i = 0; i < 10; i++) {
+                for (String key : sorted) {
+                    if (key.startsWith(queries[i])) {
+                        byScan++;
+                    }
+                }
+            }
+            final long scanTime = (System.nanoTime() - start) / 10;
+
+            long expected = 0;
+            for (int i = 0; i < 10; i++) {
+                expected += tree.countWithPrefix(queries[i]);
+            }
+            if (byTree != bySet || byScan != expected) {
+                throw new IllegalStateException("prefix counts differ");
+            }
+            System.out.printf("round %d: %.2f us per query (TreeSet.subSet %.2f us, scan %.2f us)%n", round,
+                    treeTime / 1e3 / queries.length, setTime / 1e3 / queries.length, scanTime / 1e3);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.eddycyu.comparison;
 
+import dev.eddycyu.sort.KeySort;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +34,14 @@ public class ComparableBlock implements Comparable<ComparableBlock> {
         return result;
     }
 
+    /**
+     * @return key whose order as a long is the order of compareTo, for
+     * sorting large lists with {@link KeySort}
+     */
+    public long sortKey() {
+        return KeySort.pack(weight, size);
+    }
+
     public static void main(String[] args) {
         final ComparableBlock block1 = new ComparableBlock("block1", 10, 2);
         final ComparableBlock block2 = new ComparableBlock("block2", 20, 1);
@@ -1,9 +1,12 @@
 package dev.eddycyu.comparison;
 
+import dev.eddycyu.sort.KeySort;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static java.util.Comparator.comparingInt;
 
@@ -13,6 +16,9 @@ import static java.util.Comparator.comparingInt;
  * <p>
  * This implementation using <code>Comparator</code> is more concise but
  * slightly slower than the implementation that does not use <code>Comparator</code>.
+ * For large lists, {@link #sort(List)} packs the fields into one
+ * <code>long</code> per block and radix sorts the keys instead, which calls
+ * neither.
  *
  * @see dev.eddycyu.comparison.ComparableBlock
  */
@@ -40,7 +46,34 @@ public class CompareBlock implements Comparable<CompareBlock> {
         return COMPARATOR.compare(this, o);
     }
 
+    /**
+     * @return key whose order as a long is the order of compareTo
+     */
+    public long sortKey() {
+        return KeySort.pack(weight, size);
+    }
+
+    /**
+     * Sort blocks in the same order as <code>Collections.sort</code>, without
+     * calling the comparator.
+     *
+     * @param blocks blocks to sort
+     */
+    public static void sort(List<CompareBlock> blocks) {
+        KeySort.sort(blocks, CompareBlock::sortKey);
+    }
+
+    /**
+     * Sort a few blocks, or benchmark Collections.sort against the packed key
+     * sort when a size is given.
+     *
+     * @param args [0] number of random blocks to benchmark with
+     */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            benchmark(Integer.parseInt(args[0]));
+            return;
+        }
         final CompareBlock block1 = new CompareBlock("block1", 10, 2);
         final CompareBlock block2 = new CompareBlock("block2", 20, 1);
         final CompareBlock block3 = new CompareBlock("block3", 10, 1);
@@ -56,4 +89,57 @@ public class CompareBlock implements Comparable<CompareBlock> {
             System.out.println(block.name + " [weight: " + block.weight + "][size: " + block.size + "]");
         }
     }
+
+    private static void benchmark(int N) {
+        final Random random = new Random(42);
+        final List<CompareBlock> compareBlocks = new ArrayList<>(N);
+        final List<ComparableBlock> comparableBlocks = new ArrayList<>(N);
+        for (int i = 0; i < N; i++) {
+            final int weight = random.nextInt(1000);
+            final int size = random.nextInt(1000);
+            compareBlocks.add(new CompareBlock("block", weight, size));
+            comparableBlocks.add(new ComparableBlock("block", weight, size));
+        }
+        final List<CompareBlock> expected = new ArrayList<>(compareBlocks);
+        Collections.sort(expected);
+
+        System.out.printf("N=%d, best of 3 runs%n", N);
+        final String[] names = {"Collections.sort CompareBlock", "Collections.sort ComparableBlock",
+                "KeySort CompareBlock", "KeySort ComparableBlock"};
+        final long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int run = 0; run < 3; run++) {
+            for (int s = 0; s < names.length; s++) {
+                final List<CompareBlock> compares = s % 2 == 0 ? new ArrayList<>(compareBlocks) : null;
+                final List<ComparableBlock> comparables = s % 2 == 1 ? new ArrayList<>(comparableBlocks) : null;
+                final long start = System.nanoTime();
+                switch (s) {
+                    case 0:
+                        Collections.sort(compares);
+                        break;
+                    case 1:
+                        Collections.sort(comparables);
+                        break;
+                    case 2:
+                        sort(compares);
+                        break;
+                    default:
+                        KeySort.sort(comparables, ComparableBlock::sortKey);
+                        break;
+                }
+                best[s] = Math.min(best[s], System.nanoTime() - start);
+                // both sorts are stable, so they must agree element by element
+                for (int i = 0; i < N; i++) {
+                    final boolean same = compares != null
+                            ? compares.get(i) == expected.get(i)
+                            : comparables.get(i).sortKey() == expected.get(i).sortKey();
+                    if (!same) {
+                        throw new IllegalStateException(names[s] + " did not sort");
+                    }
+                }
+            }
+        }
+        for (int s = 0; s < names.length; s++) {
+            System.out.printf("  %-32s %6d ms%n", names[s], best[s] / 1_000_000);
+        }
+    }
 }
@@ -33,6 +33,24 @@ public class BellmanFord {
         final int V = graph.length;
         final int[] distance = new int[V];
         final int[] predecessor = new int[V];
+        if (!computeShortestPath(graph, source, distance, predecessor)) {
+            final int[] cycle = NegativeCycle.find(EdgeList.fromMatrix(graph), source);
+            System.out.print("graph contains negative cycle: ");
+            for (int vertex : cycle) {
+                System.out.print(vertex + "->");
+            }
+            System.out.println(cycle[0]);
+            return;
+        }
+
+        // output shortest paths from source vertex to other vertices
+        printShortestPathFromSource(source, distance, predecessor);
+    }
+
+    // compute path distance and predecessor from source vertex to other
+    // vertices; returns false if the graph contains a negative cycle
+    static boolean computeShortestPath(int[][] graph, int source, int[] distance, int[] predecessor) {
+        final int V = graph.length;
 
         // assign infinity path distance to each vertex
         Arrays.fill(distance, Integer.MAX_VALUE);
@@ -67,16 +85,13 @@ public class BellmanFord {
             dest = edge.destination;
             if ((distance[src] != Integer.MAX_VALUE)
                     && (distance[src] + graph[src][dest] < distance[dest])) {
-                System.out.println("graph contains negative cycle");
-                return;
+                return false;
             }
         }
-
-        // output shortest paths from source vertex to other vertices
-        printShortestPathFromSource(source, distance, predecessor);
+        return true;
     }
 
-    private static void printShortestPathFromSource(int source, int[] distance, int[] predecessor) {
+    static void printShortestPathFromSource(int source, int[] distance, int[] predecessor) {
         for (int i = 0; i < distance.length; i++) {
             if (distance[i] != Integer.MAX_VALUE) {
                 System.out.printf("Distance from vertex[%d] to vertex[%d] is %d: ",
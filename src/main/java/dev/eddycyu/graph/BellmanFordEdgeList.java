@@ -0,0 +1,232 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How to find the shortest path between a SINGLE source vertex and all other
+ * (reachable) vertices in a weighted graph with negative weights, without
+ * the wasted passes of the textbook Bellman-Ford algorithm.
+ * <p>
+ * Two modes are provided:
+ * <ul>
+ * <li>{@link #shortestPath}: Bellman-Ford over an {@link EdgeList} that
+ * reads each weight from a primitive array and stops as soon as a full pass
+ * over the edges changes nothing. On most graphs this happens long before
+ * V passes.</li>
+ * <li>{@link #shortestPathQueue}: the queue-based variant (also known as
+ * the Shortest Path Faster Algorithm, SPFA) over a {@link CsrView}. Only
+ * the outgoing edges of vertices whose distance changed are rescanned. A
+ * negative cycle is detected when a shortest path would need V or more
+ * edges.</li>
+ * </ul>
+ * Both modes fill the same distance and predecessor arrays as
+ * {@link BellmanFord} and report a negative cycle reachable from the source
+ * by returning false.
+ * <p>
+ * Space Complexity: O(V + E)
+ * Time Complexity: O(VE) in the worst case, usually far less
+ * <p>
+ * https://en.wikipedia.org/wiki/Bellman%E2%80%93Ford_algorithm#Improvements
+ * https://en.wikipedia.org/wiki/Shortest_Path_Faster_Algorithm
+ *
+ * @see BellmanFord
+ */
+public class BellmanFordEdgeList {
+
+    private BellmanFordEdgeList() {
+    }
+
+    /**
+     * Compute the shortest path distance and predecessor from source to every
+     * vertex by relaxing every edge until a pass makes no change.
+     *
+     * @param graph       edge list
+     * @param source      source vertex
+     * @param distance    output distance to each vertex; Integer.MAX_VALUE if unreachable
+     * @param predecessor output predecessor of each vertex; -1 for source and unreachable vertices
+     * @return false if the graph contains a negative cycle reachable from source
+     */
+    public static boolean shortestPath(EdgeList graph, int source, int[] distance, int[] predecessor) {
+        final int V = graph.vertexCount;
+        final int E = graph.edgeCount();
+        final int[] src = graph.source;
+        final int[] dst = graph.target;
+        final int[] weight = graph.weight;
+
+        // assign infinity path distance and -1 predecessor to each vertex
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(predecessor, -1);
+
+        // assign zero path distance to source (self loop)
+        distance[source] = 0;
+
+        // relax all edges until nothing changes; without a negative cycle
+        // every shortest path has at most V - 1 edges, so a change in pass V
+        // means there is a negative cycle
+        for (int pass = 0; pass < V; pass++) {
+            boolean changed = false;
+            for (int e = 0; e < E; e++) {
+                final int fromDistance = distance[src[e]];
+                if (fromDistance != Integer.MAX_VALUE) {
+                    final int newDistance = fromDistance + weight[e];
+                    if (newDistance < distance[dst[e]]) {
+                        distance[dst[e]] = newDistance;
+                        predecessor[dst[e]] = src[e];
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the shortest path distance and predecessor from source to every
+     * vertex by only rescanning vertices whose distance changed (SPFA).
+     *
+     * @param graph       graph in compressed sparse row format
+     * @param source      source vertex
+     * @param distance    output distance to each vertex; Integer.MAX_VALUE if unreachable
+     * @param predecessor output predecessor of each vertex; -1 for source and unreachable vertices
+     * @return false if the graph contains a negative cycle reachable from source
+     */
+    public static boolean shortestPathQueue(CsrView graph, int source, int[] distance, int[] predecessor) {
+        final int V = graph.vertexCount();
+        final int[] queue = new int[V];       // circular; a vertex is queued at most once
+        final boolean[] queued = new boolean[V];
+        final int[] edgeCount = new int[V];   // number of edges on the current path
+
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(predecessor, -1);
+        distance[source] = 0;
+
+        int head = 0;
+        int size = 1;
+        queue[0] = source;
+        queued[source] = true;
+        while (size > 0) {
+            final int fromV = queue[head];
+            head = head + 1 == V ? 0 : head + 1;
+            size--;
+            queued[fromV] = false;
+
+            final int fromDistance = distance[fromV];
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + graph.weight(e);
+                if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    edgeCount[toV] = edgeCount[fromV] + 1;
+                    if (edgeCount[toV] >= V) {
+                        // a simple path has at most V - 1 edges
+                        return false;
+                    }
+                    if (!queued[toV]) {
+                        queued[toV] = true;
+                        int tail = head + size;
+                        if (tail >= V) {
+                            tail -= V;
+                        }
+                        queue[tail] = toV;
+                        size++;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // random graph with negative weights but no negative cycle: each weight
+    // is w + p[u] - p[v] for a non-negative w and a random potential p, so
+    // the weight of every cycle is non-negative
+    private static int[][] randomMatrix(int V, int degree, Random random) {
+        final int[] potential = new int[V];
+        for (int v = 0; v < V; v++) {
+            potential[v] = random.nextInt(50);
+        }
+        final int[][] graph = new int[V][V];
+        for (int u = 0; u < V; u++) {
+            for (int k = 0; k < degree; k++) {
+                final int v = random.nextInt(V);
+                final int weight = 1 + random.nextInt(100) + potential[u] - potential[v];
+                // zero means no edge in the matrix representation
+                graph[u][v] = weight == 0 ? 1 : weight;
+            }
+        }
+        return graph;
+    }
+
+    public static void main(String[] args) {
+        // same graphs as BellmanFord
+        final int[][] graph = new int[][]{
+                {0, 0, -1, 2, 0, 0, 0, 0, 0},
+                {0, 0, 2, 0, 0, 3, 0, 0, 0},
+                {1, 2, 0, 1, 3, 0, 0, 0, 0},
+                {2, 0, 1, 0, 0, 0, 1, 0, 0},
+                {0, 0, 3, 0, 0, 2, 0, 0, 0},
+                {0, 3, 0, 0, 2, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0, 1, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 4, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0, 2, 0}};
+        final int[][] graphNegativeCycle = new int[][]{
+                {0, 0, -1, 2, 0, 0, 0, 0, 0},
+                {0, 0, 2, 0, 0, 3, 0, 0, 0},
+                {1, 2, 0, 1, 3, 0, 0, 0, 0},
+                {-2, 0, 1, 0, 0, 0, 1, 0, 0},
+                {0, 0, 3, 0, 0, 2, 0, 0, 0},
+                {0, 3, 0, 0, 2, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0, 1, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 4, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0, 2, 0}};
+        final int[] distance = new int[graph.length];
+        final int[] predecessor = new int[graph.length];
+        System.out.println("graph with no negative cycle (early termination):");
+        if (shortestPath(EdgeList.fromMatrix(graph), 0, distance, predecessor)) {
+            BellmanFord.printShortestPathFromSource(0, distance, predecessor);
+        }
+        System.out.println("graph with no negative cycle (queue):");
+        if (shortestPathQueue(CsrGraph.fromMatrix(graph), 0, distance, predecessor)) {
+            BellmanFord.printShortestPathFromSource(0, distance, predecessor);
+        }
+        System.out.println("graph with negative cycle: "
+                + !shortestPath(EdgeList.fromMatrix(graphNegativeCycle), 0, distance, predecessor) + " "
+                + !shortestPathQueue(CsrGraph.fromMatrix(graphNegativeCycle), 0, distance, predecessor));
+
+        // benchmark against the matrix implementation
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int[][] matrix = randomMatrix(V, degree, new Random(42));
+        final EdgeList edges = EdgeList.fromMatrix(matrix);
+        final CsrGraph csr = edges.toCsrGraph();
+        final int[] expected = new int[V];
+        final int[] expectedPredecessor = new int[V];
+        final int[] actual = new int[V];
+        final int[] actualPredecessor = new int[V];
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BellmanFord.computeShortestPath(matrix, 0, expected, expectedPredecessor);
+            final long matrixTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            shortestPath(edges, 0, actual, actualPredecessor);
+            final long edgeListTime = System.nanoTime() - start;
+            if (!Arrays.equals(expected, actual)) {
+                throw new IllegalStateException("edge list distance mismatch");
+            }
+            start = System.nanoTime();
+            shortestPathQueue(csr, 0, actual, actualPredecessor);
+            final long queueTime = System.nanoTime() - start;
+            if (!Arrays.equals(expected, actual)) {
+                throw new IllegalStateException("queue distance mismatch");
+            }
+            System.out.printf("V=%d E=%d: matrix %d ms, edge list %d ms, queue %d ms%n",
+                    V, edges.edgeCount(), matrixTime / 1_000_000,
+                    edgeListTime / 1_000_000, queueTime / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,1051 @@
+package dev.eddycyu.graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How to answer point-to-point shortest path queries on large road-like
+ * graphs in well under a millisecond. This implementation uses Contraction
+ * Hierarchies.
+ * <p>
+ * Preprocessing removes (contracts) the vertices one at a time in order of
+ * importance. When a vertex v is contracted, a shortcut edge u->w with weight
+ * w(u, v) + w(v, w) is added for each pair of remaining neighbours whose
+ * shortest path goes through v; a local Dijkstra search from u that avoids v
+ * (the witness search) decides whether another path is at least as short.
+ * The order is chosen greedily by twice the edge difference (shortcuts added
+ * minus edges removed) plus the number of neighbours already contracted, which
+ * keeps the number of shortcuts low and spreads the contraction evenly over
+ * the graph.
+ * <p>
+ * Vertices are contracted in rounds: every vertex whose priority is lower
+ * than that of all its remaining neighbours is contracted in the same round.
+ * These vertices are independent, so their witness searches run in parallel
+ * on a <code>ForkJoinPool</code>. A witness path through another vertex of
+ * the same round only counts if it is strictly shorter, so two vertices of a
+ * round can never skip a shortcut by relying on each other.
+ * <p>
+ * Priorities are updated lazily: contracting a vertex only marks its
+ * neighbours stale. A stale vertex that is selected for a round has its
+ * priority recomputed first, and waits for a later round if it is no longer
+ * lower than its neighbours'. A vertex whose neighbours are contracted in
+ * several rounds is then recomputed once instead of once per round. The
+ * adjacency lists are sorted, so adding and removing an edge is a binary
+ * search, even for the high-degree vertices near the top of the hierarchy.
+ * <p>
+ * Every shortest path in the result goes up the hierarchy and then down
+ * again, so a query is a bidirectional Dijkstra search where the forward
+ * search from the source only follows edges to more important vertices and
+ * the backward search from the target only follows edges from more important
+ * vertices (see {@link Query}). Both searches settle only a few hundred
+ * vertices, even on continental graphs. Each shortcut remembers the vertex it
+ * skips, so the path in the original graph can be unpacked.
+ * <p>
+ * The hierarchy can be written to a file and read back with
+ * {@link #write(Path)} and {@link #read(Path)} so preprocessing is done once.
+ * The weights must be non-negative.
+ * <p>
+ * Space Complexity: O(V + E + S), where S is the number of shortcuts
+ * Time Complexity: preprocessing is heuristic; O(S' log S') per query, where
+ * S' is the number of vertices settled by the two upward searches
+ * <p>
+ * https://en.wikipedia.org/wiki/Contraction_hierarchies
+ *
+ * @see DijkstraPointToPoint
+ */
+public class ContractionHierarchy {
+
+    private static final int MAGIC = 0x52474843; // "CHGR"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    // maximum number of vertices settled by one witness search; when the
+    // limit is reached the shortcut is added, which is always correct
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final int vertexCount;
+    // edges to more important vertices
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upWeights;
+    private final int[] upMiddle;      // vertex skipped by a shortcut, or -1
+    // edges from more important vertices, grouped by their target
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final int[] downWeights;
+    private final int[] downMiddle;
+
+    ContractionHierarchy(int vertexCount, int[] upOffsets, int[] upTargets, int[] upWeights, int[] upMiddle,
+                         int[] downOffsets, int[] downSources, int[] downWeights, int[] downMiddle) {
+        this.vertexCount = vertexCount;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddle = upMiddle;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddle = downMiddle;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return number of edges in the hierarchy, including shortcuts
+     */
+    public int edgeCount() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * @return number of shortcut edges added by preprocessing
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int middle : upMiddle) {
+            if (middle != -1) {
+                count++;
+            }
+        }
+        for (int middle : downMiddle) {
+            if (middle != -1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return a new query workspace for this hierarchy
+     */
+    public Query newQuery() {
+        return new Query(this);
+    }
+
+    /**
+     * Build the hierarchy using the common <code>ForkJoinPool</code>.
+     *
+     * @param graph graph with non-negative weights
+     * @return contraction hierarchy of graph
+     */
+    public static ContractionHierarchy build(CsrView graph) {
+        return build(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Build the hierarchy using the given pool for the witness searches.
+     *
+     * @param graph graph with non-negative weights
+     * @param pool  pool to run on
+     * @return contraction hierarchy of graph
+     */
+    public static ContractionHierarchy build(CsrView graph, ForkJoinPool pool) {
+        return new Builder(graph, pool).build();
+    }
+
+    /**
+     * Point-to-point query workspace. Like {@link DijkstraWorkspace}, the
+     * arrays are stamped with a generation number so a query never clears
+     * them. A query is not thread-safe; use one per thread.
+     */
+    public static class Query {
+        private final ContractionHierarchy ch;
+        private final int[] forwardDistance;
+        private final int[] backwardDistance;
+        private final int[] forwardEdge;       // up edge used to reach each vertex
+        private final int[] backwardEdge;      // down edge used to reach each vertex
+        private final int[] forwardStamp;
+        private final int[] backwardStamp;
+        private final IndexedMinHeap forwardHeap;
+        private final IndexedMinHeap backwardHeap;
+        private int generation;
+        private int source = -1;
+        private int target = -1;
+        private int meeting = -1;
+        private int settled;
+        private int[] path = new int[16];
+        private int pathLength;
+
+        Query(ContractionHierarchy ch) {
+            final int V = ch.vertexCount;
+            this.ch = ch;
+            forwardDistance = new int[V];
+            backwardDistance = new int[V];
+            forwardEdge = new int[V];
+            backwardEdge = new int[V];
+            forwardStamp = new int[V];
+            backwardStamp = new int[V];
+            forwardHeap = new IndexedMinHeap(V);
+            backwardHeap = new IndexedMinHeap(V);
+        }
+
+        /**
+         * Compute the shortest path distance from source to target.
+         *
+         * @param source source vertex
+         * @param target target vertex
+         * @return shortest path distance; Integer.MAX_VALUE if unreachable
+         */
+        public int shortestPath(int source, int target) {
+            reset();
+            this.source = source;
+            this.target = target;
+            final int gen = generation;
+            forwardDistance[source] = 0;
+            forwardEdge[source] = -1;
+            forwardStamp[source] = gen;
+            forwardHeap.insert(source, 0);
+            backwardDistance[target] = 0;
+            backwardEdge[target] = -1;
+            backwardStamp[target] = gen;
+            backwardHeap.insert(target, 0);
+
+            // unlike plain bidirectional search, each side has to run until
+            // its own frontier is no closer than the best path, because the
+            // upward searches do not meet in the middle of the path
+            long best = Long.MAX_VALUE;
+            meeting = -1;
+            settled = 0;
+            while (true) {
+                final boolean forwardActive = !forwardHeap.isEmpty() && forwardHeap.peekKey() < best;
+                final boolean backwardActive = !backwardHeap.isEmpty() && backwardHeap.peekKey() < best;
+                if (!forwardActive && !backwardActive) {
+                    break;
+                }
+                final boolean forward = forwardActive
+                        && (!backwardActive || forwardHeap.peekKey() <= backwardHeap.peekKey());
+                final int vertex = forward ? settleForward() : settleBackward();
+                settled++;
+                final int otherStamp = forward ? backwardStamp[vertex] : forwardStamp[vertex];
+                if (otherStamp == gen) {
+                    final long length = (long) forwardDistance[vertex] + backwardDistance[vertex];
+                    if (length < best) {
+                        best = length;
+                        meeting = vertex;
+                    }
+                }
+            }
+            pathLength = -1;
+            return meeting == -1 ? Integer.MAX_VALUE : (int) best;
+        }
+
+        /**
+         * @return number of vertices settled by the last query
+         */
+        public int settled() {
+            return settled;
+        }
+
+        /**
+         * Unpack the shortcuts on the shortest path of the last query into
+         * the vertices of the original graph.
+         *
+         * @return vertices on the path from source to target; empty if
+         * target was not reachable
+         */
+        public int[] path() {
+            if (meeting == -1) {
+                return new int[0];
+            }
+            if (pathLength == -1) {
+                pathLength = 0;
+                append(source);
+                // source->meeting: walk back from the meeting vertex, then
+                // unpack the up edges front to back
+                int count = 0;
+                for (int vertex = meeting; vertex != source; vertex = ch.upSource(forwardEdge[vertex])) {
+                    count++;
+                }
+                final int[] edges = new int[count];
+                for (int vertex = meeting, i = count - 1; vertex != source; vertex = ch.upSource(edges[i--])) {
+                    edges[i] = forwardEdge[vertex];
+                }
+                for (int e : edges) {
+                    unpack(ch.upSource(e), ch.upTargets[e], ch.upMiddle[e]);
+                }
+                // meeting->target: the down edges are already in order
+                for (int vertex = meeting; vertex != target; ) {
+                    final int e = backwardEdge[vertex];
+                    final int next = ch.downTarget(e);
+                    unpack(vertex, next, ch.downMiddle[e]);
+                    vertex = next;
+                }
+            }
+            return Arrays.copyOf(path, pathLength);
+        }
+
+        private int settleForward() {
+            final int gen = generation;
+            final int fromV = forwardHeap.poll();
+            final int fromDistance = forwardDistance[fromV];
+            // stall on demand: if a more important vertex reaches fromV with
+            // a shorter path, fromV is not on a shortest path and need not be
+            // expanded
+            for (int k = ch.downOffsets[fromV]; k < ch.downOffsets[fromV + 1]; k++) {
+                final int u = ch.downSources[k];
+                if (forwardStamp[u] == gen && forwardDistance[u] + ch.downWeights[k] < fromDistance) {
+                    return fromV;
+                }
+            }
+            for (int e = ch.upOffsets[fromV]; e < ch.upOffsets[fromV + 1]; e++) {
+                final int toV = ch.upTargets[e];
+                final int newDistance = fromDistance + ch.upWeights[e];
+                if (forwardStamp[toV] != gen) {
+                    forwardStamp[toV] = gen;
+                    forwardDistance[toV] = newDistance;
+                    forwardEdge[toV] = e;
+                    forwardHeap.insert(toV, newDistance);
+                } else if (newDistance < forwardDistance[toV]) {
+                    forwardDistance[toV] = newDistance;
+                    forwardEdge[toV] = e;
+                    forwardHeap.decreaseKey(toV, newDistance);
+                }
+            }
+            return fromV;
+        }
+
+        private int settleBackward() {
+            final int gen = generation;
+            final int fromV = backwardHeap.poll();
+            final int fromDistance = backwardDistance[fromV];
+            for (int e = ch.upOffsets[fromV]; e < ch.upOffsets[fromV + 1]; e++) {
+                final int w = ch.upTargets[e];
+                if (backwardStamp[w] == gen && backwardDistance[w] + ch.upWeights[e] < fromDistance) {
+                    return fromV;
+                }
+            }
+            for (int k = ch.downOffsets[fromV]; k < ch.downOffsets[fromV + 1]; k++) {
+                final int toV = ch.downSources[k];
+                final int newDistance = fromDistance + ch.downWeights[k];
+                if (backwardStamp[toV] != gen) {
+                    backwardStamp[toV] = gen;
+                    backwardDistance[toV] = newDistance;
+                    backwardEdge[toV] = k;
+                    backwardHeap.insert(toV, newDistance);
+                } else if (newDistance < backwardDistance[toV]) {
+                    backwardDistance[toV] = newDistance;
+                    backwardEdge[toV] = k;
+                    backwardHeap.decreaseKey(toV, newDistance);
+                }
+            }
+            return fromV;
+        }
+
+        // append the vertices after from on the edge from->to
+        private void unpack(int from, int to, int middle) {
+            if (middle == -1) {
+                append(to);
+                return;
+            }
+            // the skipped vertex is less important than both ends
+            unpack(from, middle, ch.downMiddle[ch.findDown(middle, from)]);
+            unpack(middle, to, ch.upMiddle[ch.findUp(middle, to)]);
+        }
+
+        private void append(int vertex) {
+            if (pathLength == path.length) {
+                path = Arrays.copyOf(path, pathLength * 2);
+            }
+            path[pathLength++] = vertex;
+        }
+
+        private void reset() {
+            forwardHeap.clear();
+            backwardHeap.clear();
+            generation++;
+            if (generation == 0) {
+                // generation counter wrapped around; stale stamps could collide
+                Arrays.fill(forwardStamp, 0);
+                Arrays.fill(backwardStamp, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    // source vertex of an up edge
+    private int upSource(int e) {
+        return owner(upOffsets, e);
+    }
+
+    // target vertex of a down edge
+    private int downTarget(int k) {
+        return owner(downOffsets, k);
+    }
+
+    // vertex whose edge range contains index
+    private static int owner(int[] offsets, int index) {
+        int lo = 0;
+        int hi = offsets.length - 2;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // index of the up edge from->to
+    private int findUp(int from, int to) {
+        for (int e = upOffsets[from]; e < upOffsets[from + 1]; e++) {
+            if (upTargets[e] == to) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("missing edge " + from + "->" + to);
+    }
+
+    // index of the down edge from->to
+    private int findDown(int to, int from) {
+        for (int k = downOffsets[to]; k < downOffsets[to + 1]; k++) {
+            if (downSources[k] == from) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("missing edge " + from + "->" + to);
+    }
+
+    /**
+     * Write the hierarchy to a file. The layout is a 32 byte header (magic,
+     * version, V, number of up edges, number of down edges, reserved)
+     * followed by the offsets, targets, weights and middle vertices of the
+     * up edges and then the same four arrays for the down edges, all as
+     * little-endian ints.
+     *
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        final int V = vertexCount;
+        final int U = upTargets.length;
+        final int D = downSources.length;
+        try (final FileChannel channel = GraphFile.create(file)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(U).putInt(D);
+            long position = HEADER_BYTES;
+            for (int[] array : new int[][]{upOffsets, upTargets, upWeights, upMiddle,
+                    downOffsets, downSources, downWeights, downMiddle}) {
+                GraphFile.put(GraphFile.map(channel, FileChannel.MapMode.READ_WRITE, position, array.length), array);
+                position += 4L * array.length;
+            }
+        }
+    }
+
+    /**
+     * Read a hierarchy written by {@link #write(Path)} onto the heap.
+     *
+     * @param file file to read
+     * @return contraction hierarchy
+     * @throws IOException if the file cannot be read or is not in the expected format
+     */
+    public static ContractionHierarchy read(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a contraction hierarchy file: " + file);
+            }
+            final int V = header.getInt();
+            final int U = header.getInt();
+            final int D = header.getInt();
+            final int[] lengths = {V + 1, U, U, U, V + 1, D, D, D};
+            final int[][] arrays = new int[lengths.length][];
+            long position = HEADER_BYTES;
+            for (int i = 0; i < lengths.length; i++) {
+                if (channel.size() < position + 4L * lengths[i]) {
+                    throw new IOException("truncated contraction hierarchy file: " + file);
+                }
+                final IntBuffer[] segments = GraphFile.map(channel, FileChannel.MapMode.READ_ONLY,
+                        position, lengths[i]);
+                arrays[i] = MappedGraph.copy(segments, lengths[i]);
+                position += 4L * lengths[i];
+            }
+            return new ContractionHierarchy(V, arrays[0], arrays[1], arrays[2], arrays[3],
+                    arrays[4], arrays[5], arrays[6], arrays[7]);
+        }
+    }
+
+    /**
+     * Growable adjacency list of one vertex during preprocessing; holds at
+     * most one edge per neighbour, sorted by neighbour so that an edge is
+     * found by binary search. Degrees grow as shortcuts are added, so a
+     * linear scan per insert and delete would make contracting a vertex
+     * quadratic in its degree.
+     */
+    private static final class Adjacency {
+        private int[] vertex = new int[4];
+        private int[] weight = new int[4];
+        private int[] middle = new int[4];
+        private int size;
+
+        // add an edge, or lower the weight of the existing edge to v
+        void add(int v, int w, int m) {
+            int i = Arrays.binarySearch(vertex, 0, size, v);
+            if (i >= 0) {
+                if (w < weight[i]) {
+                    weight[i] = w;
+                    middle[i] = m;
+                }
+                return;
+            }
+            i = -(i + 1);
+            if (size == vertex.length) {
+                vertex = Arrays.copyOf(vertex, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            System.arraycopy(vertex, i, vertex, i + 1, size - i);
+            System.arraycopy(weight, i, weight, i + 1, size - i);
+            System.arraycopy(middle, i, middle, i + 1, size - i);
+            vertex[i] = v;
+            weight[i] = w;
+            middle[i] = m;
+            size++;
+        }
+
+        void remove(int v) {
+            final int i = Arrays.binarySearch(vertex, 0, size, v);
+            if (i >= 0) {
+                size--;
+                System.arraycopy(vertex, i + 1, vertex, i, size - i);
+                System.arraycopy(weight, i + 1, weight, i, size - i);
+                System.arraycopy(middle, i + 1, middle, i, size - i);
+            }
+        }
+    }
+
+    /**
+     * Per-thread scratch space for witness searches.
+     */
+    private static final class Witness {
+        private final int[] distance;
+        private final int[] stamp;
+        private final int[] targetStamp;      // generation in which the vertex is a target
+        private final boolean[] viaRound;     // every best path so far uses a vertex of the round
+        private final IndexedMinHeap heap;
+        private int generation;
+        private int[] shortcuts = new int[48]; // (u, w, weight) triples
+        private int size;
+
+        Witness(int vertexCount) {
+            distance = new int[vertexCount];
+            stamp = new int[vertexCount];
+            targetStamp = new int[vertexCount];
+            viaRound = new boolean[vertexCount];
+            heap = new IndexedMinHeap(vertexCount);
+        }
+
+        // Dijkstra from source over the remaining vertices other than
+        // excluded, up to maxDistance or until all targets are settled; among equally short paths, those that
+        // avoid the vertices of the current round are preferred
+        void search(Adjacency[] out, byte[] state, int source, int excluded, int maxDistance,
+                    Adjacency targets) {
+            heap.clear();
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(targetStamp, 0);
+                generation = 1;
+            }
+            final int gen = generation;
+            distance[source] = 0;
+            stamp[source] = gen;
+            viaRound[source] = false;
+            heap.insert(source, 0);
+            // stop early once every target is settled
+            int remaining = 0;
+            for (int i = 0; i < targets.size; i++) {
+                if (targets.vertex[i] != source) {
+                    targetStamp[targets.vertex[i]] = gen;
+                    remaining++;
+                }
+            }
+            int settled = 0;
+            while (!heap.isEmpty() && heap.peekKey() <= maxDistance && settled < WITNESS_SETTLE_LIMIT) {
+                final int fromV = heap.poll();
+                settled++;
+                if (targetStamp[fromV] == gen && --remaining == 0) {
+                    break;
+                }
+                final Adjacency adjacency = out[fromV];
+                for (int i = 0; i < adjacency.size; i++) {
+                    final int toV = adjacency.vertex[i];
+                    if (toV == excluded) {
+                        continue;
+                    }
+                    final int newDistance = distance[fromV] + adjacency.weight[i];
+                    final boolean newViaRound = viaRound[fromV] || state[toV] == Builder.IN_ROUND;
+                    if (stamp[toV] != gen || newDistance < distance[toV]) {
+                        stamp[toV] = gen;
+                        distance[toV] = newDistance;
+                        viaRound[toV] = newViaRound;
+                        heap.insertOrDecrease(toV, newDistance);
+                    } else if (newDistance == distance[toV] && !newViaRound) {
+                        viaRound[toV] = false;
+                    }
+                }
+            }
+        }
+
+        // true if the search found a path to vertex that makes a shortcut of
+        // the given length unnecessary
+        boolean witnessed(int vertex, int length) {
+            return stamp[vertex] == generation
+                    && (distance[vertex] < length || (distance[vertex] == length && !viaRound[vertex]));
+        }
+
+        void addShortcut(int u, int w, int weight) {
+            if (size + 3 > shortcuts.length) {
+                shortcuts = Arrays.copyOf(shortcuts, shortcuts.length * 2);
+            }
+            shortcuts[size++] = u;
+            shortcuts[size++] = w;
+            shortcuts[size++] = weight;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int index, Witness witness);
+    }
+
+    /**
+     * Preprocessing state: the remaining graph, the priority of each vertex
+     * and the edges of the contracted vertices.
+     */
+    private static final class Builder {
+        static final byte ACTIVE = 0;
+        static final byte IN_ROUND = 1;
+        static final byte CONTRACTED = 2;
+
+        private static final int CHUNK = 64;
+
+        private final int V;
+        private final ForkJoinPool pool;
+        private final Adjacency[] out;
+        private final Adjacency[] in;
+        private final byte[] state;
+        private final int[] priority;
+        private final int[] deletedNeighbours;
+        // a neighbour was contracted since the priority was computed
+        private final boolean[] stale;
+        private final Witness[] witnesses;
+
+        Builder(CsrView graph, ForkJoinPool pool) {
+            this.V = graph.vertexCount();
+            this.pool = pool;
+            this.out = new Adjacency[V];
+            this.in = new Adjacency[V];
+            this.state = new byte[V];
+            this.priority = new int[V];
+            this.deletedNeighbours = new int[V];
+            this.stale = new boolean[V];
+            this.witnesses = new Witness[Math.max(1, pool.getParallelism())];
+            for (int v = 0; v < V; v++) {
+                out[v] = new Adjacency();
+                in[v] = new Adjacency();
+            }
+            for (int u = 0; u < V; u++) {
+                for (int e = graph.offset(u); e < graph.offset(u + 1); e++) {
+                    final int v = graph.target(e);
+                    if (u != v) {
+                        out[u].add(v, graph.weight(e), -1);
+                        in[v].add(u, graph.weight(e), -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            // initial priorities
+            int[] active = new int[V];
+            for (int v = 0; v < V; v++) {
+                active[v] = v;
+            }
+            forEach(active, V, (i, witness) -> priority[i] = priority(i, witness));
+
+            // edges of each vertex to the vertices that were still active
+            // when it was contracted
+            final Adjacency[] up = new Adjacency[V];
+            final Adjacency[] down = new Adjacency[V];
+
+            final boolean[] selected = new boolean[V];
+            final boolean[] recomputed = new boolean[V];
+            final int[] round = new int[V];
+            final int[][] shortcuts = new int[V][];
+            int remaining = V;
+            while (remaining > 0) {
+                // independent set of vertices that are less important than
+                // all their active neighbours, by the priorities as last
+                // computed
+                final int[] candidates = active;
+                forEach(candidates, remaining, (v, witness) -> selected[v] = isLocalMinimum(v));
+                int size = 0;
+                for (int i = 0; i < remaining; i++) {
+                    final int v = candidates[i];
+                    if (selected[v]) {
+                        round[size++] = v;
+                    }
+                }
+
+                // a selected vertex whose priority was stale is recomputed,
+                // and if it went up the vertex may no longer be the least
+                // important of its neighbours; it then waits for a later
+                // round. Dropping vertices keeps the set independent.
+                forEach(round, size, (v, witness) -> {
+                    recomputed[v] = stale[v];
+                    if (stale[v]) {
+                        priority[v] = priority(v, witness);
+                        stale[v] = false;
+                    }
+                });
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    final int v = round[i];
+                    if (recomputed[v] && !isLocalMinimum(v)) {
+                        selected[v] = false;
+                    } else {
+                        round[kept++] = v;
+                        state[v] = IN_ROUND;
+                    }
+                }
+                size = kept;
+                kept = 0;
+                for (int i = 0; i < remaining; i++) {
+                    final int v = candidates[i];
+                    if (!selected[v]) {
+                        active[kept++] = v;
+                    }
+                }
+                remaining = kept;
+
+                // shortcuts of the round in parallel
+                forEach(round, size, (v, witness) -> {
+                    witness.size = 0;
+                    contract(v, witness, true);
+                    shortcuts[v] = Arrays.copyOf(witness.shortcuts, witness.size);
+                });
+
+                // apply the round; the neighbours are only marked stale, and
+                // their priorities are recomputed when they are next selected
+                for (int i = 0; i < size; i++) {
+                    final int v = round[i];
+                    selected[v] = false;
+                    up[v] = out[v];
+                    down[v] = in[v];
+                    for (int j = 0; j < out[v].size; j++) {
+                        final int w = out[v].vertex[j];
+                        in[w].remove(v);
+                        neighbourContracted(w);
+                    }
+                    for (int j = 0; j < in[v].size; j++) {
+                        final int u = in[v].vertex[j];
+                        out[u].remove(v);
+                        neighbourContracted(u);
+                    }
+                    final int[] triples = shortcuts[v];
+                    for (int j = 0; j < triples.length; j += 3) {
+                        out[triples[j]].add(triples[j + 1], triples[j + 2], v);
+                        in[triples[j + 1]].add(triples[j], triples[j + 2], v);
+                    }
+                    shortcuts[v] = null;
+                    out[v] = null;
+                    in[v] = null;
+                    state[v] = CONTRACTED;
+                }
+            }
+            return toHierarchy(up, down);
+        }
+
+        // the priority is left as it was, usually too low, so that the vertex
+        // is soon selected and its priority recomputed
+        private void neighbourContracted(int v) {
+            deletedNeighbours[v]++;
+            stale[v] = true;
+        }
+
+        // true if v has a lower (priority, id) than all its active neighbours
+        private boolean isLocalMinimum(int v) {
+            for (Adjacency adjacency : new Adjacency[]{out[v], in[v]}) {
+                for (int i = 0; i < adjacency.size; i++) {
+                    final int n = adjacency.vertex[i];
+                    if (priority[n] < priority[v] || (priority[n] == priority[v] && n < v)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int priority(int v, Witness witness) {
+            return priority(v, contract(v, witness, false));
+        }
+
+        private int priority(int v, int shortcuts) {
+            return 2 * (shortcuts - out[v].size - in[v].size) + deletedNeighbours[v];
+        }
+
+        // find the shortcuts needed to contract v; returns their number and
+        // adds them to the witness when add is true
+        private int contract(int v, Witness witness, boolean add) {
+            final Adjacency incoming = in[v];
+            final Adjacency outgoing = out[v];
+            int count = 0;
+            for (int i = 0; i < incoming.size; i++) {
+                final int u = incoming.vertex[i];
+                final int toV = incoming.weight[i];
+                int maxOut = -1;
+                for (int j = 0; j < outgoing.size; j++) {
+                    if (outgoing.vertex[j] != u) {
+                        maxOut = Math.max(maxOut, outgoing.weight[j]);
+                    }
+                }
+                if (maxOut == -1) {
+                    continue;
+                }
+                witness.search(out, state, u, v, toV + maxOut, outgoing);
+                for (int j = 0; j < outgoing.size; j++) {
+                    final int w = outgoing.vertex[j];
+                    final int viaV = toV + outgoing.weight[j];
+                    if (w != u && !witness.witnessed(w, viaV)) {
+                        count++;
+                        if (add) {
+                            witness.addShortcut(u, w, viaV);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        // run task for items[0, count) on the pool; workers take chunks of
+        // items from a shared counter and each uses its own witness
+        private void forEach(int[] items, int count, Task body) {
+            final int workers = Math.min(witnesses.length, (count + CHUNK - 1) / CHUNK);
+            if (workers <= 1) {
+                final Witness witness = witness(0);
+                for (int i = 0; i < count; i++) {
+                    body.run(items[i], witness);
+                }
+                return;
+            }
+            final AtomicInteger next = new AtomicInteger();
+            final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+            for (int w = 0; w < workers; w++) {
+                final Witness witness = witness(w);
+                tasks[w] = pool.submit(() -> {
+                    int start;
+                    while ((start = next.getAndAdd(CHUNK)) < count) {
+                        final int end = Math.min(start + CHUNK, count);
+                        for (int i = start; i < end; i++) {
+                            body.run(items[i], witness);
+                        }
+                    }
+                });
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        private Witness witness(int worker) {
+            if (witnesses[worker] == null) {
+                witnesses[worker] = new Witness(V);
+            }
+            return witnesses[worker];
+        }
+
+        private ContractionHierarchy toHierarchy(Adjacency[] up, Adjacency[] down) {
+            final int[] upOffsets = new int[V + 1];
+            final int[] downOffsets = new int[V + 1];
+            for (int v = 0; v < V; v++) {
+                upOffsets[v + 1] = upOffsets[v] + up[v].size;
+                downOffsets[v + 1] = downOffsets[v] + down[v].size;
+            }
+            final int[] upTargets = new int[upOffsets[V]];
+            final int[] upWeights = new int[upOffsets[V]];
+            final int[] upMiddle = new int[upOffsets[V]];
+            final int[] downSources = new int[downOffsets[V]];
+            final int[] downWeights = new int[downOffsets[V]];
+            final int[] downMiddle = new int[downOffsets[V]];
+            for (int v = 0; v < V; v++) {
+                System.arraycopy(up[v].vertex, 0, upTargets, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].weight, 0, upWeights, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].middle, 0, upMiddle, upOffsets[v], up[v].size);
+                System.arraycopy(down[v].vertex, 0, downSources, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].weight, 0, downWeights, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].middle, 0, downMiddle, downOffsets[v], down[v].size);
+            }
+            return new ContractionHierarchy(V, upOffsets, upTargets, upWeights, upMiddle,
+                    downOffsets, downSources, downWeights, downMiddle);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    /**
+     * Road-like graph of N x N intersections: local streets between
+     * neighbouring intersections, an arterial road on every 8th row and
+     * column, and a highway on every 64th. The weight of a road is its
+     * travel time, its random length divided by the speed of its class, so
+     * long trips use the fast roads as on a real road network. About one in
+     * ten local streets is missing.
+     */
+    static CsrGraph roadGraph(int N, Random random) {
+        final int V = N * N;
+        final int[] src = new int[4 * V];
+        final int[] dst = new int[4 * V];
+        final int[] weight = new int[4 * V];
+        int E = 0;
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                final int v = row * N + col;
+                for (int direction = 0; direction < 2; direction++) {
+                    final boolean right = direction == 0;
+                    if ((right && col + 1 == N) || (!right && row + 1 == N)) {
+                        continue;
+                    }
+                    final int u = right ? v + 1 : v + N;
+                    // a road along a row is classified by the row, and one
+                    // along a column by the column
+                    final int line = right ? row : col;
+                    final int speed = line % 64 == 0 ? 8 : line % 8 == 0 ? 3 : 1;
+                    if (speed == 1 && random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    final int length = 100 + random.nextInt(50);
+                    src[E] = v;
+                    dst[E] = u;
+                    weight[E++] = Math.max(1, length * (9 + random.nextInt(3)) / (10 * speed));
+                    src[E] = u;
+                    dst[E] = v;
+                    weight[E++] = Math.max(1, length * (9 + random.nextInt(3)) / (10 * speed));
+                }
+            }
+        }
+        return CsrGraph.fromEdges(V, Arrays.copyOf(src, E), Arrays.copyOf(dst, E), Arrays.copyOf(weight, E));
+    }
+
+    /**
+     * Benchmark preprocessing and queries against early exit Dijkstra.
+     *
+     * @param args [0] graph file (see {@link GraphFile}) or the side of a
+     *             road-like grid graph (see {@link #roadGraph(int, Random)}),
+     *             [1] number of queries, [2] number of them to check against
+     *             Dijkstra
+     */
+    public static void main(String[] args) throws IOException {
+        final CsrView graph;
+        if (args.length > 0 && !args[0].matches("\\d+")) {
+            graph = GraphFile.map(Paths.get(args[0]));
+        } else {
+            graph = roadGraph(args.length > 0 ? Integer.parseInt(args[0]) : 300, new Random(42));
+        }
+        final int V = graph.vertexCount();
+        final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        final int checks = Math.min(queries, args.length > 2 ? Integer.parseInt(args[2]) : 200);
+
+        long start = System.nanoTime();
+        final ContractionHierarchy built = build(graph);
+        System.out.printf("V=%d E=%d: preprocessing %d ms, %d shortcuts, %d edges in hierarchy%n",
+                V, graph.edgeCount(), (System.nanoTime() - start) / 1_000_000,
+                built.shortcutCount(), built.edgeCount());
+
+        // round trip through a file
+        final Path file = Files.createTempFile("graph", ".ch");
+        final ContractionHierarchy ch;
+        try {
+            built.write(file);
+            start = System.nanoTime();
+            ch = read(file);
+            System.out.printf("read %d bytes in %d ms%n", Files.size(file), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        final Query query = ch.newQuery();
+        final DijkstraWorkspace workspace = new DijkstraWorkspace(V);
+        final Random random = new Random(7);
+        final int[] sources = new int[queries];
+        final int[] targets = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            sources[q] = random.nextInt(V);
+            targets[q] = random.nextInt(V);
+        }
+
+        // the first queries are checked against Dijkstra, which is too slow
+        // to run for all of them on a large graph
+        final long[] dijkstraTimes = new long[checks];
+        for (int q = 0; q < checks; q++) {
+            final int s = sources[q];
+            final int t = targets[q];
+            final int distance = query.shortestPath(s, t);
+            final long begin = System.nanoTime();
+            final int expected = workspace.shortestPath(graph, s, t);
+            dijkstraTimes[q] = System.nanoTime() - begin;
+            if (distance != expected) {
+                throw new IllegalStateException("distance mismatch from " + s + " to " + t);
+            }
+
+            // the unpacked path must be a path of the original graph with
+            // the same length
+            if (distance != Integer.MAX_VALUE) {
+                final int[] path = query.path();
+                long length = 0;
+                for (int i = 1; i < path.length; i++) {
+                    int best = Integer.MAX_VALUE;
+                    for (int e = graph.offset(path[i - 1]); e < graph.offset(path[i - 1] + 1); e++) {
+                        if (graph.target(e) == path[i]) {
+                            best = Math.min(best, graph.weight(e));
+                        }
+                    }
+                    length += best;
+                }
+                if (path[0] != s || path[path.length - 1] != t || length != distance) {
+                    throw new IllegalStateException("bad path from " + s + " to " + t);
+                }
+            }
+        }
+
+        // time every query after the checks have warmed up the query code
+        final long[] chTimes = new long[queries];
+        long settled = 0;
+        for (int q = 0; q < queries; q++) {
+            final long begin = System.nanoTime();
+            query.shortestPath(sources[q], targets[q]);
+            chTimes[q] = System.nanoTime() - begin;
+            settled += query.settled();
+        }
+        Arrays.sort(chTimes);
+        Arrays.sort(dijkstraTimes);
+        System.out.printf("%d queries, %d vertices settled per query on average, %d checked against Dijkstra%n",
+                queries, settled / queries, checks);
+        System.out.printf("contraction hierarchy: p50 %6d us, p90 %6d us, p99 %6d us, max %6d us%n",
+                percentile(chTimes, 0.5) / 1000, percentile(chTimes, 0.9) / 1000,
+                percentile(chTimes, 0.99) / 1000, chTimes[queries - 1] / 1000);
+        if (checks > 0) {
+            System.out.printf("Dijkstra:              p50 %6d us, p90 %6d us, p99 %6d us, max %6d us%n",
+                    percentile(dijkstraTimes, 0.5) / 1000, percentile(dijkstraTimes, 0.9) / 1000,
+                    percentile(dijkstraTimes, 0.99) / 1000, dijkstraTimes[checks - 1] / 1000);
+        }
+    }
+}
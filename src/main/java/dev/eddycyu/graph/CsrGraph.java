@@ -0,0 +1,187 @@
+package dev.eddycyu.graph;
+
+import java.util.Random;
+
+/**
+ * Weighted directed graph stored in compressed sparse row (CSR) format.
+ * <p>
+ * The outgoing edges of vertex v occupy the index range
+ * [offsets[v], offsets[v + 1]) of the targets and weights arrays, so the
+ * whole graph is held in three primitive arrays and the edges of a vertex
+ * are adjacent in memory. An undirected edge is stored as two directed
+ * edges.
+ * <p>
+ * Space Complexity: O(V + E)
+ * <p>
+ * https://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_row_(CSR,_CRS_or_Yale_format)
+ *
+ * @see MappedGraph
+ */
+public class CsrGraph implements CsrView {
+
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+
+    public CsrGraph(int[] offsets, int[] targets, int[] weights) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must contain at least one entry");
+        }
+        if (targets.length != weights.length
+                || offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("offsets, targets and weights are inconsistent");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int offset(int vertex) {
+        return offsets[vertex];
+    }
+
+    @Override
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    public int[] offsets() {
+        return offsets;
+    }
+
+    public int[] targets() {
+        return targets;
+    }
+
+    public int[] weights() {
+        return weights;
+    }
+
+    /**
+     * Build a CSR graph from an adjacency matrix where a zero entry means
+     * there is no edge (the convention used by {@link Dijkstra} and
+     * {@link BellmanFord}).
+     *
+     * @param graph adjacency matrix
+     * @return CSR graph with the same edges
+     */
+    public static CsrGraph fromMatrix(int[][] graph) {
+        final int V = graph.length;
+        final int[] offsets = new int[V + 1];
+        for (int i = 0; i < V; i++) {
+            int degree = 0;
+            for (int j = 0; j < V; j++) {
+                if (graph[i][j] != 0) {
+                    degree++;
+                }
+            }
+            offsets[i + 1] = offsets[i] + degree;
+        }
+        final int[] targets = new int[offsets[V]];
+        final int[] weights = new int[offsets[V]];
+        for (int i = 0; i < V; i++) {
+            int e = offsets[i];
+            for (int j = 0; j < V; j++) {
+                if (graph[i][j] != 0) {
+                    targets[e] = j;
+                    weights[e] = graph[i][j];
+                    e++;
+                }
+            }
+        }
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    /**
+     * Build a CSR graph from an edge list using a counting sort on the source
+     * vertex. Edges that share a source keep their relative order.
+     *
+     * @param V      number of vertices
+     * @param source source vertex of each edge
+     * @param target target vertex of each edge
+     * @param weight weight of each edge
+     * @return CSR graph with the same edges
+     */
+    public static CsrGraph fromEdges(int V, int[] source, int[] target, int[] weight) {
+        final int E = source.length;
+        if (target.length != E || weight.length != E) {
+            throw new IllegalArgumentException("edge arrays must have the same length");
+        }
+        final int[] offsets = new int[V + 1];
+        for (int e = 0; e < E; e++) {
+            offsets[source[e] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        final int[] next = new int[V];
+        System.arraycopy(offsets, 0, next, 0, V);
+        final int[] targets = new int[E];
+        final int[] weights = new int[E];
+        for (int e = 0; e < E; e++) {
+            final int i = next[source[e]]++;
+            targets[i] = target[e];
+            weights[i] = weight[e];
+        }
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    /**
+     * Build the reverse (transposed) graph, where every edge u->v becomes
+     * v->u with the same weight.
+     *
+     * @return reverse graph
+     */
+    public CsrGraph reverse() {
+        final int V = vertexCount();
+        final int E = edgeCount();
+        final int[] source = new int[E];
+        for (int u = 0; u < V; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                source[e] = u;
+            }
+        }
+        return fromEdges(V, targets, source, weights);
+    }
+
+    /**
+     * Generate a random directed graph where every vertex has the same
+     * out-degree and edge weights are uniform in [1, maxWeight].
+     *
+     * @param V         number of vertices
+     * @param degree    out-degree of each vertex
+     * @param maxWeight maximum edge weight
+     * @param random    source of randomness
+     * @return random CSR graph
+     */
+    public static CsrGraph random(int V, int degree, int maxWeight, Random random) {
+        final int E = V * degree;
+        final int[] offsets = new int[V + 1];
+        final int[] targets = new int[E];
+        final int[] weights = new int[E];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + degree;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                targets[e] = random.nextInt(V);
+                weights[e] = 1 + random.nextInt(maxWeight);
+            }
+        }
+        return new CsrGraph(offsets, targets, weights);
+    }
+}
@@ -0,0 +1,30 @@
+package dev.eddycyu.graph;
+
+/**
+ * Read access to a weighted directed graph in compressed sparse row (CSR)
+ * format, whether its arrays are on the heap ({@link CsrGraph}) or in a
+ * memory-mapped file ({@link MappedGraph}).
+ * <p>
+ * The outgoing edges of vertex v are the edges with an index in
+ * [offset(v), offset(v + 1)).
+ */
+public interface CsrView {
+
+    int vertexCount();
+
+    int edgeCount();
+
+    /**
+     * @param vertex vertex, or vertexCount() for the end of the last vertex
+     * @return index of the first outgoing edge of vertex
+     */
+    int offset(int vertex);
+
+    int target(int edge);
+
+    int weight(int edge);
+
+    default int outDegree(int vertex) {
+        return offset(vertex + 1) - offset(vertex);
+    }
+}
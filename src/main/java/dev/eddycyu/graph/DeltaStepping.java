@@ -0,0 +1,281 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * How to find the shortest path between a SINGLE source vertex and all other
+ * (reachable) vertices using multiple threads for ONE query. This
+ * implementation uses the delta-stepping algorithm.
+ * <p>
+ * Dijkstra's algorithm visits vertices strictly one at a time in order of
+ * distance, which leaves no room for parallelism within a query.
+ * Delta-stepping relaxes that order: tentative distances are grouped into
+ * buckets of width delta, and all vertices in the lowest non-empty bucket
+ * are processed together. Light edges (weight &lt;= delta) can put vertices
+ * back into the current bucket, so they are relaxed repeatedly until the
+ * bucket stays empty; heavy edges (weight &gt; delta) can never do that, so
+ * they are relaxed once for every vertex removed from the bucket. The edge
+ * relaxations of a bucket are spread over the worker threads and distances
+ * are lowered with compare-and-set.
+ * <p>
+ * A delta of 1 behaves like Dijkstra's algorithm (little parallelism, little
+ * wasted work) while a delta of infinity behaves like Bellman-Ford (lots of
+ * parallelism, lots of wasted work). The weights must be non-negative.
+ * <p>
+ * Space Complexity: O(V + E)
+ * Time Complexity: O(E log V) expected on random graphs with a good delta
+ * <p>
+ * https://en.wikipedia.org/wiki/Parallel_single-source_shortest_path_algorithm#Delta_stepping_algorithm
+ *
+ * @see DijkstraCsr
+ * @see BellmanFord
+ */
+public class DeltaStepping {
+
+    // frontiers smaller than this are relaxed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final CsrView graph;
+    private final int delta;
+    private final ForkJoinPool pool;
+    private final int threads;
+    private final AtomicIntegerArray distance;
+    private final IntList[] buckets;
+    private final IntList[] updates;
+    private final int[] frontierStamp;
+    private final int[] removedStamp;
+    private final IntList frontier = new IntList();
+    private final IntList removed = new IntList();
+    private long pending;
+
+    private DeltaStepping(CsrView graph, int delta, ForkJoinPool pool) {
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+        this.threads = pool.getParallelism();
+        final int V = graph.vertexCount();
+        this.distance = new AtomicIntegerArray(V);
+        int maxWeight = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            maxWeight = Math.max(maxWeight, graph.weight(e));
+        }
+        // pending distances always lie within maxWeight of the current
+        // bucket, so the buckets can be reused cyclically
+        this.buckets = new IntList[maxWeight / delta + 2];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList();
+        }
+        this.updates = new IntList[threads];
+        for (int i = 0; i < threads; i++) {
+            updates[i] = new IntList();
+        }
+        this.frontierStamp = new int[V];
+        this.removedStamp = new int[V];
+        Arrays.fill(frontierStamp, -1);
+        Arrays.fill(removedStamp, -1);
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex using a
+     * new pool with the given number of threads.
+     *
+     * @param graph   graph with non-negative weights
+     * @param source  source vertex
+     * @param delta   bucket width; see {@link #defaultDelta(CsrView)}
+     * @param threads number of worker threads
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] shortestPath(CsrView graph, int source, int delta, int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return shortestPath(graph, source, delta, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex using
+     * the given pool.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @param delta  bucket width; see {@link #defaultDelta(CsrView)}
+     * @param pool   pool to run on
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] shortestPath(CsrView graph, int source, int delta, ForkJoinPool pool) {
+        if (delta < 1) {
+            throw new IllegalArgumentException("delta must be positive");
+        }
+        return new DeltaStepping(graph, delta, pool).run(source);
+    }
+
+    /**
+     * A common choice of delta: the maximum edge weight divided by the
+     * average out-degree, so that each vertex has about one light edge
+     * that can land in the current bucket.
+     *
+     * @param graph graph with non-negative weights
+     * @return suggested bucket width
+     */
+    public static int defaultDelta(CsrView graph) {
+        int maxWeight = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            maxWeight = Math.max(maxWeight, graph.weight(e));
+        }
+        final double degree = Math.max(1.0, (double) graph.edgeCount() / Math.max(1, graph.vertexCount()));
+        return Math.max(1, (int) (maxWeight / degree));
+    }
+
+    private int[] run(int source) {
+        final int V = graph.vertexCount();
+        for (int v = 0; v < V; v++) {
+            distance.set(v, Integer.MAX_VALUE);
+        }
+        distance.set(source, 0);
+        buckets[0].add(source);
+        pending = 1;
+
+        int phase = 0;
+        for (int i = 0; pending > 0; i++) {
+            final IntList bucket = buckets[i % buckets.length];
+            removed.clear();
+            while (!bucket.isEmpty()) {
+                // take the vertices that still belong to this bucket
+                frontier.clear();
+                for (int k = 0; k < bucket.size; k++) {
+                    final int v = bucket.data[k];
+                    if (distance.get(v) / delta == i && frontierStamp[v] != phase) {
+                        frontierStamp[v] = phase;
+                        frontier.add(v);
+                        if (removedStamp[v] != i) {
+                            removedStamp[v] = i;
+                            removed.add(v);
+                        }
+                    }
+                }
+                pending -= bucket.size;
+                bucket.clear();
+                phase++;
+
+                // relax light edges; this may refill the current bucket
+                relax(frontier, true);
+            }
+            // relax heavy edges of every vertex removed from the bucket
+            relax(removed, false);
+        }
+
+        final int[] result = new int[V];
+        for (int v = 0; v < V; v++) {
+            result[v] = distance.get(v);
+        }
+        return result;
+    }
+
+    private void relax(IntList vertices, boolean light) {
+        final int n = vertices.size;
+        if (n == 0) {
+            return;
+        }
+        if (threads == 1 || n < PARALLEL_THRESHOLD) {
+            relax(vertices.data, 0, n, light, updates[0]);
+        } else {
+            final int chunk = (n + threads - 1) / threads;
+            final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                final int lo = Math.min(n, t * chunk);
+                final int hi = Math.min(n, lo + chunk);
+                final IntList out = updates[t];
+                tasks[t] = pool.submit(() -> relax(vertices.data, lo, hi, light, out));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        // move updated vertices into the bucket of their new distance
+        for (IntList out : updates) {
+            for (int k = 0; k < out.size; k++) {
+                final int v = out.data[k];
+                buckets[(distance.get(v) / delta) % buckets.length].add(v);
+            }
+            pending += out.size;
+            out.clear();
+        }
+    }
+
+    private void relax(int[] vertices, int lo, int hi, boolean light, IntList out) {
+        for (int k = lo; k < hi; k++) {
+            final int fromV = vertices[k];
+            final int fromDistance = distance.get(fromV);
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int weight = graph.weight(e);
+                if ((weight <= delta) != light) {
+                    continue;
+                }
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + weight;
+                // lower the distance atomically; another thread may be
+                // relaxing an edge into the same vertex
+                int current = distance.get(toV);
+                while (newDistance < current) {
+                    if (distance.compareAndSet(toV, current, newDistance)) {
+                        out.add(toV);
+                        break;
+                    }
+                    current = distance.get(toV);
+                }
+            }
+        }
+    }
+
+    // growable array of primitive ints
+    private static class IntList {
+        private int[] data = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        // DeltaSteppingTest validates against Dijkstra's algorithm on random
+        // graphs; here, a large graph where a single query dominates
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(7));
+        final int delta = args.length > 2 ? Integer.parseInt(args[2]) : defaultDelta(graph);
+
+        long start = System.nanoTime();
+        final int[] expected = DijkstraCsr.shortestPath(graph, 0);
+        final long dijkstra = System.nanoTime() - start;
+        start = System.nanoTime();
+        final int[] actual = shortestPath(graph, 0, delta, threads);
+        final long deltaStepping = System.nanoTime() - start;
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException("distance mismatch on large graph");
+        }
+        System.out.printf("V=%d E=%d delta=%d threads=%d%n", V, graph.edgeCount(), delta, threads);
+        System.out.printf("Dijkstra:       %d ms%n", dijkstra / 1_000_000);
+        System.out.printf("delta-stepping: %d ms%n", deltaStepping / 1_000_000);
+    }
+}
@@ -24,6 +24,14 @@ import java.util.Stack;
 public class Dijkstra {
 
     private static void shortestPath(int[][] graph, int source) {
+        final int[] distance = computeShortestPath(graph, source);
+
+        // output shortest paths from source vertex to other vertices
+        printShortestPathFromSource(source, distance);
+    }
+
+    // compute path distance from source vertex to other vertices
+    static int[] computeShortestPath(int[][] graph, int source) {
         final int V = graph.length;
         final boolean[] visitedVertex = new boolean[V];
         final int[] distance = new int[V];
@@ -54,9 +62,7 @@ public class Dijkstra {
                 }
             }
         }
-
-        // output shortest paths from source vertex to other vertices
-        printShortestPathFromSource(source, distance);
+        return distance;
     }
 
     // find unvisited vertex with the minimum path distance
@@ -0,0 +1,158 @@
+package dev.eddycyu.graph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How to find the shortest paths from MANY source vertices to all other
+ * (reachable) vertices in parallel, e.g. to build a distance table.
+ * <p>
+ * Each source is an independent run of Dijkstra's algorithm, so the sources
+ * are spread over the worker threads of a <code>ForkJoinPool</code>. All
+ * workers share the same read-only {@link CsrGraph} and each worker owns a
+ * {@link DijkstraWorkspace}, so workers never contend on shared mutable
+ * state. Workers take the next unprocessed source from a shared counter,
+ * which keeps them busy even when some sources reach far more of the graph
+ * than others.
+ * <p>
+ * The results are either written into a caller-supplied flat row-major
+ * matrix where row i holds the distances from sources[i], or streamed one row
+ * at a time to a {@link RowConsumer} so the full matrix never has to exist.
+ * <p>
+ * Space Complexity: O(S * V) for the result, O(P * V) for the P workspaces
+ * Time Complexity: O(S * E log V / P)
+ *
+ * @see DijkstraWorkspace
+ */
+public class DijkstraBatch {
+
+    private DijkstraBatch() {
+    }
+
+    /**
+     * Receives the distances from one source as soon as they are computed.
+     * It is called concurrently from the worker threads, and the row array
+     * is reused by the worker once the call returns.
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        /**
+         * @param index position of the source in the sources array
+         * @param row   distance from the source to each vertex;
+         *              Integer.MAX_VALUE if unreachable
+         */
+        void accept(int index, int[] row);
+    }
+
+    /**
+     * Compute the shortest path distances from each source using the common
+     * <code>ForkJoinPool</code>.
+     *
+     * @param graph     graph with non-negative weights
+     * @param sources   source vertices
+     * @param distances output matrix of sources.length * V entries; row i
+     *                  holds the distances from sources[i] with
+     *                  Integer.MAX_VALUE for unreachable vertices
+     */
+    public static void shortestPaths(CsrView graph, int[] sources, int[] distances) {
+        shortestPaths(graph, sources, distances, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the shortest path distances from each source using the given
+     * pool. One task per pool thread is submitted.
+     *
+     * @param graph     graph with non-negative weights
+     * @param sources   source vertices
+     * @param distances output matrix of sources.length * V entries; row i
+     *                  holds the distances from sources[i] with
+     *                  Integer.MAX_VALUE for unreachable vertices
+     * @param pool      pool to run on
+     */
+    public static void shortestPaths(CsrView graph, int[] sources, int[] distances, ForkJoinPool pool) {
+        final int V = graph.vertexCount();
+        if ((long) sources.length * V > distances.length) {
+            throw new IllegalArgumentException("distances must hold sources.length * V entries");
+        }
+        shortestPaths(graph, sources, (index, row) -> System.arraycopy(row, 0, distances, index * V, V), pool);
+    }
+
+    /**
+     * Compute the shortest path distances from each source using the given
+     * pool and pass each row to a consumer. One task per pool thread is
+     * submitted.
+     *
+     * @param graph    graph with non-negative weights
+     * @param sources  source vertices
+     * @param consumer receives the distances from each source
+     * @param pool     pool to run on
+     */
+    public static void shortestPaths(CsrView graph, int[] sources, RowConsumer consumer, ForkJoinPool pool) {
+        final int V = graph.vertexCount();
+        final int workers = Math.max(1, Math.min(pool.getParallelism(), sources.length));
+        final AtomicInteger next = new AtomicInteger();
+        final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            tasks[w] = pool.submit(() -> {
+                final DijkstraWorkspace workspace = new DijkstraWorkspace(V);
+                final int[] row = new int[V];
+                int i;
+                while ((i = next.getAndIncrement()) < sources.length) {
+                    workspace.shortestPath(graph, sources[i]);
+                    for (int v = 0; v < V; v++) {
+                        row[v] = workspace.distance(v);
+                    }
+                    consumer.accept(i, row);
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    public static void main(String[] args) {
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int S = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(42));
+        final int[] sources = new int[S];
+        final Random random = new Random(7);
+        for (int i = 0; i < S; i++) {
+            sources[i] = random.nextInt(V);
+        }
+        final int[] distances = new int[S * V];
+
+        // check a few rows against the single-threaded implementation
+        final ForkJoinPool checkPool = new ForkJoinPool(4);
+        shortestPaths(graph, sources, distances, checkPool);
+        checkPool.shutdown();
+        for (int i = 0; i < Math.min(S, 4); i++) {
+            final int[] expected = DijkstraCsr.shortestPath(graph, sources[i]);
+            for (int v = 0; v < V; v++) {
+                if (distances[i * V + v] != expected[v]) {
+                    throw new IllegalStateException("distance mismatch for source " + sources[i]);
+                }
+            }
+        }
+
+        // scaling benchmark
+        System.out.printf("V=%d E=%d sources=%d cores=%d%n",
+                V, graph.edgeCount(), S, Runtime.getRuntime().availableProcessors());
+        long baseline = 0;
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            shortestPaths(graph, sources, distances, pool); // warm up
+            final long start = System.nanoTime();
+            shortestPaths(graph, sources, distances, pool);
+            final long elapsed = System.nanoTime() - start;
+            pool.shutdown();
+            if (threads == 1) {
+                baseline = elapsed;
+            }
+            System.out.printf("threads=%2d: %6d ms, speedup %.2fx%n",
+                    threads, elapsed / 1_000_000, (double) baseline / elapsed);
+        }
+    }
+}
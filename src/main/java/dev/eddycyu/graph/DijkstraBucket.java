@@ -0,0 +1,304 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How to find the shortest path between a SINGLE source vertex and all other
+ * (reachable) vertices when the edge weights are small non-negative integers.
+ * This implementation uses Dijkstra's algorithm with an integer priority
+ * queue instead of a comparison-based heap.
+ * <p>
+ * Dijkstra's algorithm only ever removes the smallest distance, and every
+ * distance it inserts is at most the largest edge weight C above the last one
+ * removed. Two queues make use of this:
+ * <ul>
+ * <li>Dial's algorithm keeps C + 1 buckets in a ring, one per distance
+ * modulo C + 1, as intrusive doubly linked lists of vertices. Insert,
+ * decrease-key and remove are O(1), and the buckets are scanned in order of
+ * distance, so a run costs O(E + D) where D is the largest distance.</li>
+ * <li>A monotone radix heap keeps 33 buckets, where bucket i holds the keys
+ * whose highest bit that differs from the last removed key is bit i - 1.
+ * When bucket 0 is empty, the first non-empty bucket is emptied into the
+ * lower ones using its minimum as the new last key; each entry can only move
+ * down, so it is moved at most log C times. Decrease-key inserts a new entry
+ * and the stale one is skipped when it is removed.</li>
+ * </ul>
+ * {@link #shortestPath(CsrView, int)} picks Dial's algorithm when the
+ * largest weight is at most {@link #DIAL_MAX_WEIGHT} (the ring of buckets
+ * stays small and is scanned quickly) and the radix heap otherwise. Both
+ * avoid the O(log V) sift of {@link IndexedMinHeap}.
+ * <p>
+ * Space Complexity: O(V + E + C) for Dial's algorithm, O(V + E) for the
+ * radix heap
+ * Time Complexity: O(E + D) for Dial's algorithm, O(E + V log C) for the
+ * radix heap
+ * <p>
+ * https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm#Specialized_variants
+ * https://en.wikipedia.org/wiki/Radix_heap
+ *
+ * @see DijkstraCsr
+ */
+public class DijkstraBucket {
+
+    /**
+     * Largest edge weight for which {@link #shortestPath(CsrView, int)} uses
+     * Dial's algorithm.
+     */
+    public static final int DIAL_MAX_WEIGHT = 1 << 12;
+
+    private static final int RADIX_BUCKETS = 33;
+
+    private DijkstraBucket() {
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex with
+     * the queue that suits the largest edge weight.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] shortestPath(CsrView graph, int source) {
+        final int maxWeight = maxWeight(graph);
+        return maxWeight <= DIAL_MAX_WEIGHT ? dial(graph, source, maxWeight) : radix(graph, source);
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex with
+     * Dial's algorithm.
+     *
+     * @param graph     graph with non-negative weights
+     * @param source    source vertex
+     * @param maxWeight largest edge weight in graph
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] dial(CsrView graph, int source, int maxWeight) {
+        final int V = graph.vertexCount();
+        final int B = maxWeight + 1;
+        final int[] distance = new int[V];
+        final int[] head = new int[B];  // first vertex in each bucket, or -1
+        final int[] next = new int[V];
+        final int[] prev = new int[V];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(head, -1);
+
+        distance[source] = 0;
+        next[source] = -1;
+        prev[source] = -1;
+        head[0] = source;
+        int queued = 1;
+
+        // bucket of the current distance; a vertex is queued if its distance
+        // is set and it has not been removed yet
+        int current = 0;
+        int bucket = 0;
+        while (queued > 0) {
+            while (head[bucket] == -1) {
+                current++;
+                if (++bucket == B) {
+                    bucket = 0;
+                }
+            }
+            final int fromV = head[bucket];
+            unlink(fromV, bucket, head, next, prev);
+            queued--;
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = current + graph.weight(e);
+                if (newDistance < distance[toV]) {
+                    if (distance[toV] == Integer.MAX_VALUE) {
+                        queued++;
+                    } else {
+                        unlink(toV, distance[toV] % B, head, next, prev);
+                    }
+                    distance[toV] = newDistance;
+                    // push onto the front of the bucket for the new distance
+                    final int b = newDistance % B;
+                    next[toV] = head[b];
+                    prev[toV] = -1;
+                    if (head[b] != -1) {
+                        prev[head[b]] = toV;
+                    }
+                    head[b] = toV;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static void unlink(int vertex, int bucket, int[] head, int[] next, int[] prev) {
+        if (prev[vertex] == -1) {
+            head[bucket] = next[vertex];
+        } else {
+            next[prev[vertex]] = next[vertex];
+        }
+        if (next[vertex] != -1) {
+            prev[next[vertex]] = prev[vertex];
+        }
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex with a
+     * radix heap.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] radix(CsrView graph, int source) {
+        final int V = graph.vertexCount();
+        final int[] distance = new int[V];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+
+        // each bucket holds (vertex, key) entries
+        final int[][] vertices = new int[RADIX_BUCKETS][16];
+        final int[][] keys = new int[RADIX_BUCKETS][16];
+        final int[] sizes = new int[RADIX_BUCKETS];
+        int last = 0;
+        int entries = 1;
+        distance[source] = 0;
+        vertices[0][0] = source;
+        keys[0][0] = 0;
+        sizes[0] = 1;
+
+        while (entries > 0) {
+            if (sizes[0] == 0) {
+                // find the first non-empty bucket and its minimum key
+                int i = 1;
+                while (sizes[i] == 0) {
+                    i++;
+                }
+                final int[] bucketVertices = vertices[i];
+                final int[] bucketKeys = keys[i];
+                final int size = sizes[i];
+                int min = Integer.MAX_VALUE;
+                for (int j = 0; j < size; j++) {
+                    min = Math.min(min, bucketKeys[j]);
+                }
+                // move every entry into a lower bucket relative to the new
+                // last key, dropping the stale ones
+                last = min;
+                sizes[i] = 0;
+                for (int j = 0; j < size; j++) {
+                    final int vertex = bucketVertices[j];
+                    final int key = bucketKeys[j];
+                    if (key != distance[vertex]) {
+                        entries--;
+                        continue;
+                    }
+                    final int b = key == last ? 0 : 32 - Integer.numberOfLeadingZeros(key ^ last);
+                    if (sizes[b] == vertices[b].length) {
+                        vertices[b] = Arrays.copyOf(vertices[b], sizes[b] * 2);
+                        keys[b] = Arrays.copyOf(keys[b], sizes[b] * 2);
+                    }
+                    vertices[b][sizes[b]] = vertex;
+                    keys[b][sizes[b]++] = key;
+                }
+                continue;
+            }
+
+            final int fromV = vertices[0][--sizes[0]];
+            final int fromDistance = keys[0][sizes[0]];
+            entries--;
+            if (fromDistance != distance[fromV]) {
+                // superseded by a later decrease-key
+                continue;
+            }
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + graph.weight(e);
+                if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    final int b = newDistance == last ? 0 : 32 - Integer.numberOfLeadingZeros(newDistance ^ last);
+                    if (sizes[b] == vertices[b].length) {
+                        vertices[b] = Arrays.copyOf(vertices[b], sizes[b] * 2);
+                        keys[b] = Arrays.copyOf(keys[b], sizes[b] * 2);
+                    }
+                    vertices[b][sizes[b]] = toV;
+                    keys[b][sizes[b]++] = newDistance;
+                    entries++;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * @param graph graph
+     * @return largest edge weight; 0 if there are no edges
+     */
+    public static int maxWeight(CsrView graph) {
+        int max = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            max = Math.max(max, graph.weight(e));
+        }
+        return max;
+    }
+
+    // N x N grid with edges in both directions between neighbours and
+    // weights in [0, maxWeight]; unlike a random graph, distances grow with
+    // the side of the grid
+    private static CsrGraph grid(int N, int maxWeight, Random random) {
+        final int V = N * N;
+        final int[] src = new int[4 * V];
+        final int[] dst = new int[4 * V];
+        final int[] weight = new int[4 * V];
+        int E = 0;
+        for (int v = 0; v < V; v++) {
+            final int right = v % N + 1 < N ? v + 1 : -1;
+            final int down = v + N < V ? v + N : -1;
+            for (int u : new int[]{right, down}) {
+                if (u != -1) {
+                    src[E] = v;
+                    dst[E] = u;
+                    weight[E++] = random.nextInt(maxWeight + 1);
+                    src[E] = u;
+                    dst[E] = v;
+                    weight[E++] = random.nextInt(maxWeight + 1);
+                }
+            }
+        }
+        return CsrGraph.fromEdges(V, Arrays.copyOf(src, E), Arrays.copyOf(dst, E), Arrays.copyOf(weight, E));
+    }
+
+    public static void main(String[] args) {
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int N = (int) Math.sqrt(V);
+        final int runs = 3;
+        for (boolean isGrid : new boolean[]{false, true}) {
+            System.out.printf("%s graph with V=%d, best of %d runs%n", isGrid ? "grid" : "random", V, runs);
+            System.out.println("max weight    heap ms    Dial ms   radix ms   auto");
+            for (int maxWeight : new int[]{1, 16, 255, 4096, 65_536, 1 << 20}) {
+                final Random random = new Random(42);
+                final CsrGraph graph = isGrid ? grid(N, maxWeight, random) : CsrGraph.random(V, 4, maxWeight, random);
+                final int[] expected = DijkstraCsr.shortestPath(graph, 0);
+                long heap = Long.MAX_VALUE;
+                long dial = Long.MAX_VALUE;
+                long radix = Long.MAX_VALUE;
+                for (int run = 0; run < runs; run++) {
+                    long start = System.nanoTime();
+                    DijkstraCsr.shortestPath(graph, 0);
+                    heap = Math.min(heap, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    final int[] byDial = dial(graph, 0, maxWeight);
+                    dial = Math.min(dial, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    final int[] byRadix = radix(graph, 0);
+                    radix = Math.min(radix, System.nanoTime() - start);
+
+                    if (!Arrays.equals(expected, byDial) || !Arrays.equals(expected, byRadix)) {
+                        throw new IllegalStateException("distance mismatch for max weight " + maxWeight);
+                    }
+                }
+                System.out.printf("%10d %10d %10d %10d   %s%n", maxWeight, heap / 1_000_000, dial / 1_000_000,
+                        radix / 1_000_000, maxWeight <= DIAL_MAX_WEIGHT ? "Dial" : "radix");
+            }
+        }
+    }
+}
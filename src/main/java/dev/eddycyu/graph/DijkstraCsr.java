@@ -0,0 +1,155 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Stack;
+
+/**
+ * How to find the shortest path between a SINGLE source vertex and all other
+ * (reachable) vertices in a large sparse weighted graph. This implementation
+ * uses Dijkstra's algorithm over a graph in compressed sparse row format
+ * ({@link CsrView}) with an indexed d-ary heap ({@link IndexedMinHeap}). The
+ * graph may be on the heap ({@link CsrGraph}) or memory-mapped
+ * ({@link MappedGraph}).
+ * <p>
+ * Unlike {@link Dijkstra}, which scans an adjacency matrix and all vertices
+ * to find the next vertex to visit, this implementation only looks at the
+ * outgoing edges of each visited vertex and keeps the unvisited frontier in
+ * a heap that supports decrease-key. This makes it practical for graphs with
+ * millions of vertices and a small average degree (e.g. road networks).
+ * <p>
+ * This algorithm works for both directed and undirected weighted graphs, but
+ * the weights must be non-negative.
+ * <p>
+ * Space Complexity: O(V + E)
+ * Time Complexity: O(E log V)
+ * <p>
+ * https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm
+ */
+public class DijkstraCsr {
+
+    private DijkstraCsr() {
+    }
+
+    /**
+     * Compute the shortest path distance from source to every vertex.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @return distance to each vertex; Integer.MAX_VALUE if unreachable
+     */
+    public static int[] shortestPath(CsrView graph, int source) {
+        final int V = graph.vertexCount();
+        final int[] distance = new int[V];
+        final int[] predecessor = new int[V];
+        shortestPath(graph, source, distance, predecessor);
+        return distance;
+    }
+
+    /**
+     * Compute the shortest path distance and predecessor from source to every
+     * vertex.
+     *
+     * @param graph       graph with non-negative weights
+     * @param source      source vertex
+     * @param distance    output distance to each vertex; Integer.MAX_VALUE if unreachable
+     * @param predecessor output predecessor of each vertex; -1 for source and unreachable vertices
+     */
+    public static void shortestPath(CsrView graph, int source, int[] distance, int[] predecessor) {
+        final IndexedMinHeap heap = new IndexedMinHeap(graph.vertexCount());
+
+        // assign infinity path distance and -1 predecessor to each vertex
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(predecessor, -1);
+
+        // assign zero path distance to source (self loop)
+        distance[source] = 0;
+        heap.insert(source, 0);
+
+        while (!heap.isEmpty()) {
+            // visit unvisited vertex with minimum path distance
+            final int fromV = heap.poll();
+            final int fromDistance = distance[fromV];
+
+            // update the path distance for each adjacent vertex if the new
+            // distance is less than the existing distance to adjacent vertex
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + graph.weight(e);
+                if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    heap.insertOrDecrease(toV, newDistance);
+                }
+            }
+        }
+    }
+
+    private static void printShortestPathFromSource(int source, int[] distance, int[] predecessor) {
+        for (int i = 0; i < distance.length; i++) {
+            if (distance[i] != Integer.MAX_VALUE) {
+                System.out.printf("Distance from vertex[%d] to vertex[%d] is %d: ",
+                        source, i, distance[i]);
+                final Stack<Integer> path = new Stack<>();
+                for (int vertex = i; vertex != -1; vertex = predecessor[vertex]) {
+                    path.push(vertex);
+                }
+                while (!path.isEmpty()) {
+                    System.out.print(path.pop());
+                    if (!path.isEmpty()) {
+                        System.out.print("->");
+                    }
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        /*
+         * number of vertices = 9
+         * V0 <-> V2 = 1
+         * V0 <-> V3 = 2
+         * V1 <-> V2 = 2
+         * V1 <-> V5 = 3
+         * V2 <-> V3 = 1
+         * V2 <-> V4 = 3
+         * V3 <-> V6 = 1
+         * V4 <-> V5 = 2
+         * V5 <-> V6 = 1
+         * V7 --> V6 = 4
+         * V8 --> V7 = 2
+         */
+        final int[][] matrix = new int[][]{
+                {0, 0, 1, 2, 0, 0, 0, 0, 0},
+                {0, 0, 2, 0, 0, 3, 0, 0, 0},
+                {1, 2, 0, 1, 3, 0, 0, 0, 0},
+                {2, 0, 1, 0, 0, 0, 1, 0, 0},
+                {0, 0, 3, 0, 0, 2, 0, 0, 0},
+                {0, 3, 0, 0, 2, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0, 1, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 4, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0, 2, 0}};
+        final CsrGraph graph = CsrGraph.fromMatrix(matrix);
+        final int[] distance = new int[graph.vertexCount()];
+        final int[] predecessor = new int[graph.vertexCount()];
+        shortestPath(graph, 0, distance, predecessor);
+        printShortestPathFromSource(0, distance, predecessor);
+
+        // sparse graph that would not fit in memory as an adjacency matrix
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final CsrGraph large = CsrGraph.random(V, 3, 100, new Random(42));
+        final long start = System.nanoTime();
+        final int[] largeDistance = shortestPath(large, 0);
+        final long elapsed = System.nanoTime() - start;
+        int reachable = 0;
+        for (int d : largeDistance) {
+            if (d != Integer.MAX_VALUE) {
+                reachable++;
+            }
+        }
+        System.out.printf("%nV=%d E=%d: %d vertices reachable in %d ms%n",
+                large.vertexCount(), large.edgeCount(), reachable, elapsed / 1_000_000);
+    }
+}
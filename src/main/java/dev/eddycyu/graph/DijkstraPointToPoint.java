@@ -0,0 +1,301 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How to find the shortest path between TWO given vertices in a weighted
+ * graph without computing the shortest path to every other vertex.
+ * <p>
+ * Three query modes are provided:
+ * <ul>
+ * <li>{@link #query}: Dijkstra's algorithm that stops as soon as the target
+ * vertex is visited.</li>
+ * <li>{@link #bidirectional}: two simultaneous Dijkstra searches, one
+ * forward from the source and one backward from the target, that stop once
+ * the two frontiers cannot produce a shorter path. Each search only has to
+ * cover roughly half the radius, so far fewer vertices are visited.</li>
+ * <li>{@link #aStar}: A* search, which orders the frontier by distance from
+ * the source plus an admissible estimate of the remaining distance to the
+ * target, so the search is pulled towards the target.</li>
+ * </ul>
+ * The weights must be non-negative.
+ * <p>
+ * Space Complexity: O(V)
+ * Time Complexity: O(E log V) in the worst case
+ * <p>
+ * https://en.wikipedia.org/wiki/Bidirectional_search
+ * https://en.wikipedia.org/wiki/A*_search_algorithm
+ *
+ * @see DijkstraCsr
+ */
+public class DijkstraPointToPoint {
+
+    private DijkstraPointToPoint() {
+    }
+
+    /**
+     * Admissible estimate of the remaining distance from a vertex to the
+     * target, i.e. it must never be more than the actual shortest path
+     * distance. A heuristic that always returns 0 turns A* into Dijkstra.
+     */
+    @FunctionalInterface
+    public interface Heuristic {
+        int estimate(int vertex);
+    }
+
+    /**
+     * Result of a point-to-point query.
+     */
+    public static class Path {
+        private final int distance;
+        private final int[] vertices;
+        private final int settled;
+
+        Path(int distance, int[] vertices, int settled) {
+            super();
+            this.distance = distance;
+            this.vertices = vertices;
+            this.settled = settled;
+        }
+
+        /**
+         * @return length of the shortest path; Integer.MAX_VALUE if unreachable
+         */
+        public int distance() {
+            return distance;
+        }
+
+        /**
+         * @return vertices on the shortest path from source to target; empty if unreachable
+         */
+        public int[] vertices() {
+            return vertices;
+        }
+
+        /**
+         * @return number of vertices removed from the search frontier
+         */
+        public int settled() {
+            return settled;
+        }
+
+        @Override
+        public String toString() {
+            return "distance=" + distance + " path=" + Arrays.toString(vertices) + " settled=" + settled;
+        }
+    }
+
+    /**
+     * Find the shortest path from source to target with Dijkstra's algorithm,
+     * stopping as soon as the target is visited.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @param target target vertex
+     * @return shortest path from source to target
+     */
+    public static Path query(CsrView graph, int source, int target) {
+        return aStar(graph, source, target, vertex -> 0);
+    }
+
+    /**
+     * Find the shortest path from source to target with A* search.
+     *
+     * @param graph     graph with non-negative weights
+     * @param source    source vertex
+     * @param target    target vertex
+     * @param heuristic admissible estimate of the distance to target
+     * @return shortest path from source to target
+     */
+    public static Path aStar(CsrView graph, int source, int target, Heuristic heuristic) {
+        final int V = graph.vertexCount();
+        final int[] distance = new int[V];
+        final int[] predecessor = new int[V];
+        final IndexedMinHeap heap = new IndexedMinHeap(V);
+
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(predecessor, -1);
+        distance[source] = 0;
+        heap.insert(source, heuristic.estimate(source));
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            final int fromV = heap.poll();
+            settled++;
+            if (fromV == target) {
+                // with an admissible heuristic the target distance is final
+                return new Path(distance[target], getPath(source, target, predecessor), settled);
+            }
+            final int fromDistance = distance[fromV];
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + graph.weight(e);
+                if (newDistance < distance[toV]) {
+                    // a visited vertex is reopened if an inconsistent (but
+                    // admissible) heuristic made it leave the heap too early
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    heap.insertOrDecrease(toV, newDistance + heuristic.estimate(toV));
+                }
+            }
+        }
+        return new Path(Integer.MAX_VALUE, new int[0], settled);
+    }
+
+    /**
+     * Find the shortest path from source to target with bidirectional
+     * Dijkstra search.
+     *
+     * @param graph   graph with non-negative weights
+     * @param reverse reverse of graph, e.g. from {@link CsrGraph#reverse()}
+     * @param source  source vertex
+     * @param target  target vertex
+     * @return shortest path from source to target
+     */
+    public static Path bidirectional(CsrView graph, CsrView reverse, int source, int target) {
+        final int V = graph.vertexCount();
+        final int[] forwardDistance = new int[V];
+        final int[] backwardDistance = new int[V];
+        final int[] forwardPredecessor = new int[V];
+        final int[] backwardPredecessor = new int[V];
+        final IndexedMinHeap forwardHeap = new IndexedMinHeap(V);
+        final IndexedMinHeap backwardHeap = new IndexedMinHeap(V);
+
+        Arrays.fill(forwardDistance, Integer.MAX_VALUE);
+        Arrays.fill(backwardDistance, Integer.MAX_VALUE);
+        Arrays.fill(forwardPredecessor, -1);
+        Arrays.fill(backwardPredecessor, -1);
+        forwardDistance[source] = 0;
+        backwardDistance[target] = 0;
+        forwardHeap.insert(source, 0);
+        backwardHeap.insert(target, 0);
+
+        // best path found so far goes through the meeting vertex
+        long best = source == target ? 0 : Long.MAX_VALUE;
+        int meeting = source == target ? source : -1;
+        int settled = 0;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            // stop once no path through either frontier can be shorter
+            if ((long) forwardHeap.peekKey() + backwardHeap.peekKey() >= best) {
+                break;
+            }
+            // expand the side that is closer to its own start vertex so both
+            // searches grow at the same radius
+            final boolean forward = forwardHeap.peekKey() <= backwardHeap.peekKey();
+            final CsrView g = forward ? graph : reverse;
+            final IndexedMinHeap heap = forward ? forwardHeap : backwardHeap;
+            final int[] distance = forward ? forwardDistance : backwardDistance;
+            final int[] predecessor = forward ? forwardPredecessor : backwardPredecessor;
+            final int[] otherDistance = forward ? backwardDistance : forwardDistance;
+
+            final int fromV = heap.poll();
+            settled++;
+            final int fromDistance = distance[fromV];
+            final int end = g.offset(fromV + 1);
+            for (int e = g.offset(fromV); e < end; e++) {
+                final int toV = g.target(e);
+                final int newDistance = fromDistance + g.weight(e);
+                if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    heap.insertOrDecrease(toV, newDistance);
+                }
+                // check if the edge connects the two searches
+                if (otherDistance[toV] != Integer.MAX_VALUE
+                        && (long) distance[toV] + otherDistance[toV] < best) {
+                    best = (long) distance[toV] + otherDistance[toV];
+                    meeting = toV;
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return new Path(Integer.MAX_VALUE, new int[0], settled);
+        }
+
+        // join source->meeting with meeting->target
+        final int[] head = getPath(source, meeting, forwardPredecessor);
+        int tail = 0;
+        for (int vertex = meeting; vertex != target; vertex = backwardPredecessor[vertex]) {
+            tail++;
+        }
+        final int[] vertices = Arrays.copyOf(head, head.length + tail);
+        int i = head.length;
+        for (int vertex = meeting; vertex != target; ) {
+            vertex = backwardPredecessor[vertex];
+            vertices[i++] = vertex;
+        }
+        return new Path((int) best, vertices, settled);
+    }
+
+    private static int[] getPath(int source, int destination, int[] predecessor) {
+        int length = 1;
+        for (int vertex = destination; vertex != source; vertex = predecessor[vertex]) {
+            length++;
+        }
+        final int[] path = new int[length];
+        for (int vertex = destination, i = length - 1; i >= 0; vertex = predecessor[vertex], i--) {
+            path[i] = vertex;
+        }
+        return path;
+    }
+
+    public static void main(String[] args) {
+        /*
+         * grid graph of N x N vertices where each vertex is connected to its
+         * horizontal and vertical neighbours by an edge with a weight of at
+         * least 1; the manhattan distance to the target is therefore an
+         * admissible heuristic
+         */
+        final int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int V = N * N;
+        final int[] src = new int[4 * V];
+        final int[] dst = new int[4 * V];
+        final int[] weight = new int[4 * V];
+        final Random random = new Random(42);
+        int E = 0;
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                final int v = row * N + col;
+                final int right = col + 1 < N ? v + 1 : -1;
+                final int down = row + 1 < N ? v + N : -1;
+                for (int u : new int[]{right, down}) {
+                    if (u != -1) {
+                        src[E] = v;
+                        dst[E] = u;
+                        weight[E++] = 1 + random.nextInt(3);
+                        src[E] = u;
+                        dst[E] = v;
+                        weight[E++] = 1 + random.nextInt(3);
+                    }
+                }
+            }
+        }
+        final CsrGraph graph = CsrGraph.fromEdges(V,
+                Arrays.copyOf(src, E), Arrays.copyOf(dst, E), Arrays.copyOf(weight, E));
+        final CsrGraph reverse = graph.reverse();
+
+        final int source = (N / 4) * N + N / 4;
+        final int target = (3 * N / 4) * N + 3 * N / 4;
+        final Heuristic manhattan = vertex ->
+                Math.abs(vertex / N - target / N) + Math.abs(vertex % N - target % N);
+
+        final int[] all = DijkstraCsr.shortestPath(graph, source);
+        // a full run settles every reachable vertex
+        final long reachable = Arrays.stream(all).filter(d -> d != Integer.MAX_VALUE).count();
+        System.out.printf("full Dijkstra:          distance=%d settled=%d%n", all[target], reachable);
+        final Path dijkstra = query(graph, source, target);
+        System.out.printf("early exit Dijkstra:    distance=%d settled=%d%n",
+                dijkstra.distance(), dijkstra.settled());
+        final Path bidirectional = bidirectional(graph, reverse, source, target);
+        System.out.printf("bidirectional Dijkstra: distance=%d settled=%d%n",
+                bidirectional.distance(), bidirectional.settled());
+        final Path aStar = aStar(graph, source, target, manhattan);
+        System.out.printf("A* (manhattan):         distance=%d settled=%d%n",
+                aStar.distance(), aStar.settled());
+        System.out.printf("path lengths: %d %d %d vertices%n", dijkstra.vertices().length,
+                bidirectional.vertices().length, aStar.vertices().length);
+    }
+}
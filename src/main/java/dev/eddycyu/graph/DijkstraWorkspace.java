@@ -0,0 +1,207 @@
+package dev.eddycyu.graph;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Reusable scratch space for running many Dijkstra queries over graphs with
+ * the same number of vertices without allocating memory per query.
+ * <p>
+ * The distance and predecessor arrays are not cleared between queries.
+ * Instead, every query gets a new generation number and a vertex is only
+ * considered touched by the current query if its stamp matches the current
+ * generation. Resetting the workspace is therefore O(1) plus the number of
+ * vertices still left in the heap, rather than O(V) for
+ * <code>Arrays.fill</code>, so the cost of a query depends only on the part
+ * of the graph it explores.
+ * <p>
+ * A workspace is not thread-safe; allocate one per thread (e.g. in a
+ * <code>ThreadLocal</code>) and reuse it for every query on that thread.
+ * <p>
+ * Space Complexity: O(V)
+ * Time Complexity: O(E' log V') per query, where E' and V' are the edges and
+ * vertices touched by the query
+ *
+ * @see DijkstraCsr
+ */
+public class DijkstraWorkspace {
+
+    private final int[] distance;
+    private final int[] predecessor;
+    private final int[] stamp;
+    private final IndexedMinHeap heap;
+    private int generation;
+    private int source = -1;
+
+    public DijkstraWorkspace(int vertexCount) {
+        distance = new int[vertexCount];
+        predecessor = new int[vertexCount];
+        stamp = new int[vertexCount];
+        heap = new IndexedMinHeap(vertexCount);
+    }
+
+    public int capacity() {
+        return stamp.length;
+    }
+
+    /**
+     * Compute the shortest path distance from source to every reachable
+     * vertex. Results are read back with {@link #distance(int)},
+     * {@link #predecessor(int)} and {@link #path(int, int[])}.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     */
+    public void shortestPath(CsrView graph, int source) {
+        search(graph, source, -1);
+    }
+
+    /**
+     * Compute the shortest path distance from source to target, stopping as
+     * soon as the target is visited.
+     *
+     * @param graph  graph with non-negative weights
+     * @param source source vertex
+     * @param target target vertex
+     * @return shortest path distance; Integer.MAX_VALUE if unreachable
+     */
+    public int shortestPath(CsrView graph, int source, int target) {
+        search(graph, source, target);
+        return distance(target);
+    }
+
+    /**
+     * @param vertex vertex
+     * @return distance from the source of the last query to vertex;
+     * Integer.MAX_VALUE if it was not reached
+     */
+    public int distance(int vertex) {
+        return stamp[vertex] == generation ? distance[vertex] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param vertex vertex
+     * @return predecessor of vertex on the shortest path from the source of
+     * the last query; -1 for the source and vertices that were not reached
+     */
+    public int predecessor(int vertex) {
+        return stamp[vertex] == generation ? predecessor[vertex] : -1;
+    }
+
+    /**
+     * Copy the shortest path from the source of the last query to target into
+     * a caller-supplied buffer.
+     *
+     * @param target target vertex
+     * @param path   buffer for the vertices on the path, from source to target
+     * @return number of vertices on the path; 0 if target was not reached
+     * @throws IndexOutOfBoundsException if the buffer is too small
+     */
+    public int path(int target, int[] path) {
+        if (distance(target) == Integer.MAX_VALUE) {
+            return 0;
+        }
+        int length = 1;
+        for (int vertex = target; vertex != source; vertex = predecessor[vertex]) {
+            length++;
+        }
+        for (int vertex = target, i = length - 1; i >= 0; vertex = predecessor[vertex], i--) {
+            path[i] = vertex;
+        }
+        return length;
+    }
+
+    private void search(CsrView graph, int source, int target) {
+        if (graph.vertexCount() > stamp.length) {
+            throw new IllegalArgumentException("graph has more vertices than workspace capacity");
+        }
+        reset();
+        this.source = source;
+        final int gen = generation;
+
+        distance[source] = 0;
+        predecessor[source] = -1;
+        stamp[source] = gen;
+        heap.insert(source, 0);
+
+        while (!heap.isEmpty()) {
+            final int fromV = heap.poll();
+            if (fromV == target) {
+                return;
+            }
+            final int fromDistance = distance[fromV];
+            final int end = graph.offset(fromV + 1);
+            for (int e = graph.offset(fromV); e < end; e++) {
+                final int toV = graph.target(e);
+                final int newDistance = fromDistance + graph.weight(e);
+                if (stamp[toV] != gen) {
+                    // first time this query touches the vertex
+                    stamp[toV] = gen;
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    heap.insert(toV, newDistance);
+                } else if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    predecessor[toV] = fromV;
+                    heap.decreaseKey(toV, newDistance);
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        heap.clear();
+        generation++;
+        if (generation == 0) {
+            // generation counter wrapped around; stale stamps could collide
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(42));
+        final DijkstraWorkspace workspace = new DijkstraWorkspace(V);
+        final int[] path = new int[V];
+        final int[] sources = new int[queries];
+        final int[] targets = new int[queries];
+        final Random random = new Random(7);
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(V);
+            targets[i] = random.nextInt(V);
+        }
+
+        // check results against the allocating implementation
+        for (int i = 0; i < 10; i++) {
+            final int expected = DijkstraCsr.shortestPath(graph, sources[i])[targets[i]];
+            if (workspace.shortestPath(graph, sources[i], targets[i]) != expected) {
+                throw new IllegalStateException("distance mismatch for query " + i);
+            }
+        }
+
+        // run the same queries for several rounds and measure the bytes
+        // allocated by each round; JIT compilation can cause one-off
+        // allocations in early rounds (DijkstraWorkspaceTest checks that a
+        // round allocates nothing)
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final int rounds = 5;
+        for (int round = 0; round < rounds; round++) {
+            long checksum = 0;
+            final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            final long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                checksum += workspace.shortestPath(graph, sources[i], targets[i]);
+                checksum += workspace.path(targets[i], path);
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            System.out.printf("round %d: %d queries in %d ms, %d bytes allocated (checksum %d)%n",
+                    round, queries, elapsed / 1_000_000, allocated, checksum);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How to keep the shortest paths from a SINGLE source vertex up to date while
+ * edge weights change, without recomputing them from scratch. This
+ * implementation follows the approach of Ramalingam and Reps.
+ * <p>
+ * The distance of every vertex and the shortest path tree (the edge used to
+ * reach each vertex) are kept between updates. When a batch of weight
+ * changes arrives:
+ * <ol>
+ * <li>A weight increase only matters for an edge in the tree, and only for
+ * the subtree below it. The vertices in those subtrees are marked affected,
+ * and each one gets the best distance it can reach through an edge from an
+ * unaffected vertex.</li>
+ * <li>A weight decrease only matters if it gives the target of the edge a
+ * shorter distance.</li>
+ * <li>The vertices whose distance changed are then settled with Dijkstra's
+ * algorithm, which only spreads as far as the distances keep improving.</li>
+ * </ol>
+ * The work done for a batch is proportional to the number of vertices whose
+ * distance or tree edge changed, plus their edges, which is usually a tiny
+ * part of the graph.
+ * <p>
+ * The weights must be non-negative. The weights array of the graph is
+ * updated in place, so unlike the other shortest path classes this one
+ * takes a heap {@link CsrGraph} and not a read-only {@link MappedGraph}.
+ * <p>
+ * Space Complexity: O(V + E)
+ * Time Complexity: O(D log D) per batch, where D is the number of vertices
+ * touched and their edges
+ * <p>
+ * https://en.wikipedia.org/wiki/Dynamic_problem_(algorithms)
+ *
+ * @see DijkstraCsr
+ */
+public class DynamicDijkstra {
+
+    private final CsrGraph graph;
+    private final int source;
+    private final int[] distance;
+    private final int[] parentEdge;   // tree edge into each vertex, or -1
+    private final int[] edgeSource;   // source vertex of each edge
+    private final int[] inOffsets;    // incoming edges of each vertex ...
+    private final int[] inEdges;      // ... as forward edge ids
+    private final int[] affected;     // batch number that marked the vertex
+    private final int[] affectedList;
+    private final int[] stack;
+    private final IndexedMinHeap heap;
+    private int batch;
+
+    /**
+     * Compute the initial shortest paths from source.
+     *
+     * @param graph  graph with non-negative weights; its weights are updated
+     *               by {@link #update(int[], int[])}
+     * @param source source vertex
+     */
+    public DynamicDijkstra(CsrGraph graph, int source) {
+        final int V = graph.vertexCount();
+        final int E = graph.edgeCount();
+        this.graph = graph;
+        this.source = source;
+        this.distance = new int[V];
+        this.parentEdge = new int[V];
+        this.edgeSource = new int[E];
+        this.inOffsets = new int[V + 1];
+        this.inEdges = new int[E];
+        this.affected = new int[V];
+        this.affectedList = new int[V];
+        this.stack = new int[V];
+        this.heap = new IndexedMinHeap(V);
+
+        // index the incoming edges of each vertex
+        for (int u = 0; u < V; u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                edgeSource[e] = u;
+                inOffsets[graph.targets[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < V; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        final int[] next = Arrays.copyOf(inOffsets, V);
+        for (int e = 0; e < E; e++) {
+            inEdges[next[graph.targets[e]]++] = e;
+        }
+
+        // initial shortest path tree
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(parentEdge, -1);
+        distance[source] = 0;
+        heap.insert(source, 0);
+        propagate();
+    }
+
+    /**
+     * @param vertex vertex
+     * @return current shortest path distance from source; Integer.MAX_VALUE if unreachable
+     */
+    public int distance(int vertex) {
+        return distance[vertex];
+    }
+
+    /**
+     * @param vertex vertex
+     * @return predecessor of vertex in the shortest path tree; -1 for the
+     * source and unreachable vertices
+     */
+    public int predecessor(int vertex) {
+        return parentEdge[vertex] == -1 ? -1 : edgeSource[parentEdge[vertex]];
+    }
+
+    public int source() {
+        return source;
+    }
+
+    /**
+     * Change the weight of a batch of edges and repair the shortest paths.
+     *
+     * @param edges      edge ids (indices into the graph's targets and weights arrays)
+     * @param newWeights new non-negative weight of each edge
+     * @return number of vertices touched to repair the shortest paths
+     */
+    public int update(int[] edges, int[] newWeights) {
+        final int[] offsets = graph.offsets;
+        final int[] targets = graph.targets;
+        final int[] weights = graph.weights;
+        batch++;
+        if (batch == 0) {
+            Arrays.fill(affected, 0);
+            batch = 1;
+        }
+
+        // apply the new weights; collect the roots of subtrees whose tree
+        // edge became longer
+        int roots = 0;
+        for (int i = 0; i < edges.length; i++) {
+            final int e = edges[i];
+            final int oldWeight = weights[e];
+            weights[e] = newWeights[i];
+            final int v = targets[e];
+            if (newWeights[i] > oldWeight && parentEdge[v] == e && affected[v] != batch) {
+                affected[v] = batch;
+                stack[roots++] = v;
+            }
+        }
+
+        // mark every vertex below the roots as affected and reset it
+        int count = 0;
+        int top = roots;
+        while (top > 0) {
+            final int u = stack[--top];
+            affectedList[count++] = u;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                final int v = targets[e];
+                if (parentEdge[v] == e && affected[v] != batch) {
+                    affected[v] = batch;
+                    stack[top++] = v;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            distance[affectedList[i]] = Integer.MAX_VALUE;
+            parentEdge[affectedList[i]] = -1;
+        }
+
+        // give each affected vertex the best distance through an edge from
+        // an unaffected vertex
+        for (int i = 0; i < count; i++) {
+            final int v = affectedList[i];
+            for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+                final int e = inEdges[k];
+                final int u = edgeSource[e];
+                if (affected[u] != batch && distance[u] != Integer.MAX_VALUE
+                        && distance[u] + weights[e] < distance[v]) {
+                    distance[v] = distance[u] + weights[e];
+                    parentEdge[v] = e;
+                }
+            }
+            if (distance[v] != Integer.MAX_VALUE) {
+                heap.insertOrDecrease(v, distance[v]);
+            }
+        }
+
+        // an edge that became shorter may give its target a shorter distance
+        for (int e : edges) {
+            final int u = edgeSource[e];
+            final int v = targets[e];
+            if (distance[u] != Integer.MAX_VALUE && distance[u] + weights[e] < distance[v]) {
+                distance[v] = distance[u] + weights[e];
+                parentEdge[v] = e;
+                heap.insertOrDecrease(v, distance[v]);
+            }
+        }
+
+        // settle everything that changed
+        return count + propagate();
+    }
+
+    // settle the vertices in the heap with Dijkstra's algorithm; returns the
+    // number of vertices settled
+    private int propagate() {
+        final int[] offsets = graph.offsets;
+        final int[] targets = graph.targets;
+        final int[] weights = graph.weights;
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            final int fromV = heap.poll();
+            settled++;
+            final int fromDistance = distance[fromV];
+            for (int e = offsets[fromV]; e < offsets[fromV + 1]; e++) {
+                final int toV = targets[e];
+                final int newDistance = fromDistance + weights[e];
+                if (newDistance < distance[toV]) {
+                    distance[toV] = newDistance;
+                    parentEdge[toV] = e;
+                    heap.insertOrDecrease(toV, newDistance);
+                }
+            }
+        }
+        return settled;
+    }
+
+    public static void main(String[] args) {
+        // DynamicDijkstraTest checks the updates against recomputing from
+        // scratch; here, a traffic feed where a few edge weights change per
+        // batch on a large graph
+        final Random random = new Random(42);
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(7));
+        final DynamicDijkstra dynamic = new DynamicDijkstra(graph, 0);
+        final int batches = 100;
+        long touched = 0;
+        long start = System.nanoTime();
+        for (int b = 0; b < batches; b++) {
+            final int[] edges = new int[10];
+            final int[] weights = new int[10];
+            for (int i = 0; i < edges.length; i++) {
+                edges[i] = random.nextInt(graph.edgeCount());
+                weights[i] = Math.max(1, graph.weights[edges[i]] + random.nextInt(41) - 20);
+            }
+            touched += dynamic.update(edges, weights);
+        }
+        final long incremental = System.nanoTime() - start;
+        start = System.nanoTime();
+        DijkstraCsr.shortestPath(graph, 0);
+        final long full = System.nanoTime() - start;
+        System.out.printf("V=%d: %d batches of 10 changes touched %d vertices per batch, %.3f ms per batch"
+                        + " (full recomputation %d ms)%n",
+                V, batches, touched / batches, incremental / 1e6 / batches, full / 1_000_000);
+    }
+}
@@ -0,0 +1,92 @@
+package dev.eddycyu.graph;
+
+/**
+ * Weighted directed graph stored as an edge list in three parallel primitive
+ * arrays, so edge e goes from source[e] to target[e] with weight weight[e].
+ * <p>
+ * This is the natural representation for algorithms that repeatedly scan
+ * every edge, such as Bellman-Ford, because the scan is a sequential walk
+ * over three arrays with no per-edge objects.
+ * <p>
+ * Space Complexity: O(E)
+ *
+ * @see CsrGraph
+ */
+public class EdgeList {
+
+    final int vertexCount;
+    final int[] source;
+    final int[] target;
+    final int[] weight;
+
+    public EdgeList(int vertexCount, int[] source, int[] target, int[] weight) {
+        if (source.length != target.length || source.length != weight.length) {
+            throw new IllegalArgumentException("edge arrays must have the same length");
+        }
+        this.vertexCount = vertexCount;
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int edgeCount() {
+        return source.length;
+    }
+
+    public int[] source() {
+        return source;
+    }
+
+    public int[] target() {
+        return target;
+    }
+
+    public int[] weight() {
+        return weight;
+    }
+
+    /**
+     * Build an edge list from an adjacency matrix where a zero entry means
+     * there is no edge (the convention used by {@link BellmanFord}).
+     *
+     * @param graph adjacency matrix
+     * @return edge list with the same edges, ordered by source vertex
+     */
+    public static EdgeList fromMatrix(int[][] graph) {
+        final int V = graph.length;
+        int E = 0;
+        for (int[] row : graph) {
+            for (int w : row) {
+                if (w != 0) {
+                    E++;
+                }
+            }
+        }
+        final int[] source = new int[E];
+        final int[] target = new int[E];
+        final int[] weight = new int[E];
+        int e = 0;
+        for (int i = 0; i < V; i++) {
+            for (int j = 0; j < V; j++) {
+                if (graph[i][j] != 0) {
+                    source[e] = i;
+                    target[e] = j;
+                    weight[e] = graph[i][j];
+                    e++;
+                }
+            }
+        }
+        return new EdgeList(V, source, target, weight);
+    }
+
+    /**
+     * @return the same graph in compressed sparse row format
+     */
+    public CsrGraph toCsrGraph() {
+        return CsrGraph.fromEdges(vertexCount, source, target, weight);
+    }
+}
@@ -32,6 +32,19 @@ public class FloydWarshall {
         }
 
         // compute shortest path
+        if (!computeShortestPath(distance)) {
+            System.out.println("graph contains negative cycle");
+            return;
+        }
+
+        // output shortest paths for all pairs of vertices
+        printShortestPathFromSource(distance);
+    }
+
+    // compute shortest path distance in place; returns false if the graph
+    // contains a negative cycle
+    static boolean computeShortestPath(int[][] distance) {
+        final int V = distance.length;
         for (int k = 0; k < V; k++) {
             for (int i = 0; i < V; i++) {
                 for (int j = 0; j < V; j++) {
@@ -42,14 +55,11 @@ public class FloydWarshall {
                 }
                 // check for negative cycle
                 if (distance[i][i] < 0) {
-                    System.out.println("graph contains negative cycle");
-                    return;
+                    return false;
                 }
             }
         }
-
-        // output shortest paths for all pairs of vertices
-        printShortestPathFromSource(distance);
+        return true;
     }
 
     private static void printShortestPathFromSource(int[][] distance) {
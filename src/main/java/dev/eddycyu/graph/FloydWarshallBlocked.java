@@ -0,0 +1,385 @@
+package dev.eddycyu.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * How to find the shortest path between ALL pairs of vertices in a large
+ * weighted graph using the memory hierarchy and multiple threads. This
+ * implementation uses the blocked (tiled) Floyd-Warshall algorithm over a
+ * flat row-major distance matrix.
+ * <p>
+ * The textbook triple loop streams the whole V x V matrix through the cache
+ * once for every k, so for large V it is limited by memory bandwidth. The
+ * blocked version splits the matrix into B x B tiles and processes the k
+ * values of one tile row/column at a time in three phases:
+ * <ol>
+ * <li>the diagonal tile (kb, kb), which only depends on itself;</li>
+ * <li>the other tiles in row kb and column kb, which only depend on
+ * themselves and the diagonal tile;</li>
+ * <li>all remaining tiles (i, j), which only depend on tiles (i, kb) and
+ * (kb, j).</li>
+ * </ol>
+ * Each tile update reuses three tiles that fit in cache, and the tiles of
+ * phases 2 and 3 are independent of each other, so they are updated in
+ * parallel on a <code>ForkJoinPool</code>.
+ * <p>
+ * Infinity is stored as {@link #INF} = Integer.MAX_VALUE / 2 internally, so
+ * adding two distances cannot overflow and the relaxation is a plain
+ * Math.min without the two infinity checks of {@link FloydWarshall}. Any
+ * distance at or above INF / 2 at the end is reported as
+ * Integer.MAX_VALUE. This requires every shortest path, and the sum of the
+ * negative weights, to stay within +/- INF / 2.
+ * <p>
+ * Space Complexity: O(V^2)
+ * Time Complexity: O(V^3 / P) with P threads
+ * <p>
+ * https://en.wikipedia.org/wiki/Floyd%E2%80%93Warshall_algorithm
+ * https://en.wikipedia.org/wiki/Loop_nest_optimization
+ *
+ * @see FloydWarshall
+ */
+public class FloydWarshallBlocked {
+
+    static final int INF = Integer.MAX_VALUE / 2;
+    static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /**
+     * Next-hop entry for a pair of vertices with no path. A row-major V x V
+     * array cannot have more than Integer.MAX_VALUE entries, so V is always
+     * below 46341 and every vertex fits in a char.
+     */
+    public static final char NO_HOP = Character.MAX_VALUE;
+
+    private FloydWarshallBlocked() {
+    }
+
+    /**
+     * Compute the shortest path distance between all pairs of vertices in
+     * place using the common pool.
+     *
+     * @param distance row-major V x V matrix; entry i * V + j is the weight of
+     *                 edge i->j or Integer.MAX_VALUE if there is no edge, and
+     *                 the diagonal is 0; on return it holds the shortest path
+     *                 distances with Integer.MAX_VALUE for unreachable pairs
+     * @param V        number of vertices
+     * @return false if the graph contains a negative cycle
+     */
+    public static boolean shortestPath(int[] distance, int V) {
+        return shortestPath(distance, V, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the shortest path distance between all pairs of vertices in
+     * place.
+     *
+     * @param distance  row-major V x V matrix; see {@link #shortestPath(int[], int)}
+     * @param V         number of vertices
+     * @param blockSize tile width; three tiles should fit in the L1 or L2 cache
+     * @param pool      pool to run on
+     * @return false if the graph contains a negative cycle
+     */
+    public static boolean shortestPath(int[] distance, int V, int blockSize, ForkJoinPool pool) {
+        return shortestPath(distance, null, V, blockSize, pool);
+    }
+
+    /**
+     * Compute the shortest path distance between all pairs of vertices in
+     * place, and record for every pair (i, j) the vertex that follows i on
+     * the shortest path to j.
+     *
+     * @param distance  row-major V x V matrix; see {@link #shortestPath(int[], int)}
+     * @param next      row-major V x V output matrix of next hops; {@link #NO_HOP}
+     *                  for unreachable pairs; may be null if paths are not needed
+     * @param V         number of vertices
+     * @param blockSize tile width; three tiles should fit in the L1 or L2 cache
+     * @param pool      pool to run on
+     * @return false if the graph contains a negative cycle
+     */
+    public static boolean shortestPath(int[] distance, char[] next, int V, int blockSize, ForkJoinPool pool) {
+        if (distance.length != V * V || (next != null && next.length != V * V)) {
+            throw new IllegalArgumentException("distance and next must hold V * V entries");
+        }
+        for (int i = 0; i < distance.length; i++) {
+            if (distance[i] == Integer.MAX_VALUE) {
+                distance[i] = INF;
+            }
+        }
+        if (next != null) {
+            // the next hop of a direct edge is its target
+            for (int i = 0; i < V; i++) {
+                for (int j = 0; j < V; j++) {
+                    next[i * V + j] = (i == j || distance[i * V + j] != INF) ? (char) j : NO_HOP;
+                }
+            }
+        }
+
+        final int blocks = (V + blockSize - 1) / blockSize;
+        for (int kb = 0; kb < blocks; kb++) {
+            // phase 1: diagonal tile
+            updateTile(distance, next, V, blockSize, kb, kb, kb);
+            // phase 2: tiles in row kb and column kb
+            pool.invoke(new TileRange(distance, next, V, blockSize, kb, true, 0, 2 * blocks));
+            // phase 3: all remaining tiles
+            pool.invoke(new TileRange(distance, next, V, blockSize, kb, false, 0, blocks * blocks));
+        }
+
+        boolean negativeCycle = false;
+        for (int i = 0; i < V; i++) {
+            negativeCycle |= distance[i * V + i] < 0;
+        }
+        for (int i = 0; i < distance.length; i++) {
+            if (distance[i] >= INF / 2) {
+                distance[i] = Integer.MAX_VALUE;
+                if (next != null) {
+                    next[i] = NO_HOP;
+                }
+            }
+        }
+        return !negativeCycle;
+    }
+
+    /**
+     * Flatten an adjacency matrix that uses Integer.MAX_VALUE for no edge (the
+     * convention used by {@link FloydWarshall}) into row-major order.
+     *
+     * @param graph adjacency matrix
+     * @return row-major copy of graph
+     */
+    public static int[] flatten(int[][] graph) {
+        final int V = graph.length;
+        final int[] flat = new int[V * V];
+        for (int i = 0; i < V; i++) {
+            System.arraycopy(graph[i], 0, flat, i * V, V);
+        }
+        return flat;
+    }
+
+    // relax tile (bi, bj) through the vertices of tile column kb
+    private static void updateTile(int[] d, char[] next, int V, int B, int kb, int bi, int bj) {
+        if (next != null) {
+            updateTileNextHop(d, next, V, B, kb, bi, bj);
+            return;
+        }
+        final int i0 = bi * B;
+        final int i1 = Math.min(i0 + B, V);
+        final int j0 = bj * B;
+        final int j1 = Math.min(j0 + B, V);
+        final int k0 = kb * B;
+        final int k1 = Math.min(k0 + B, V);
+        if (bi != kb && bj != kb) {
+            // tiles (bi, kb) and (kb, bj) are not written, so keep row i hot
+            for (int i = i0; i < i1; i++) {
+                final int rowI = i * V;
+                for (int k = k0; k < k1; k++) {
+                    final int dik = d[rowI + k];
+                    final int rowK = k * V;
+                    for (int j = j0; j < j1; j++) {
+                        d[rowI + j] = Math.min(d[rowI + j], dik + d[rowK + j]);
+                    }
+                }
+            }
+        } else {
+            // the tile depends on itself, so k must be the outer loop
+            for (int k = k0; k < k1; k++) {
+                final int rowK = k * V;
+                for (int i = i0; i < i1; i++) {
+                    final int rowI = i * V;
+                    final int dik = d[rowI + k];
+                    for (int j = j0; j < j1; j++) {
+                        d[rowI + j] = Math.min(d[rowI + j], dik + d[rowK + j]);
+                    }
+                }
+            }
+        }
+    }
+
+    // same as updateTile, but also route i->j through the next hop of i->k
+    // whenever going through k is shorter
+    private static void updateTileNextHop(int[] d, char[] next, int V, int B, int kb, int bi, int bj) {
+        final int i0 = bi * B;
+        final int i1 = Math.min(i0 + B, V);
+        final int j0 = bj * B;
+        final int j1 = Math.min(j0 + B, V);
+        final int k0 = kb * B;
+        final int k1 = Math.min(k0 + B, V);
+        for (int k = k0; k < k1; k++) {
+            final int rowK = k * V;
+            for (int i = i0; i < i1; i++) {
+                final int rowI = i * V;
+                final int dik = d[rowI + k];
+                final char nik = next[rowI + k];
+                for (int j = j0; j < j1; j++) {
+                    final int through = dik + d[rowK + j];
+                    if (through < d[rowI + j]) {
+                        d[rowI + j] = through;
+                        next[rowI + j] = nik;
+                    }
+                }
+            }
+        }
+    }
+
+    // range of tiles of one phase, split in halves until a single tile is left
+    private static class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] distance;
+        private final char[] next;
+        private final int V;
+        private final int blockSize;
+        private final int kb;
+        private final boolean cross;
+        private final int lo;
+        private final int hi;
+
+        TileRange(int[] distance, char[] next, int V, int blockSize, int kb, boolean cross, int lo, int hi) {
+            super();
+            this.distance = distance;
+            this.next = next;
+            this.V = V;
+            this.blockSize = blockSize;
+            this.kb = kb;
+            this.cross = cross;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                final int mid = (lo + hi) >>> 1;
+                invokeAll(new TileRange(distance, next, V, blockSize, kb, cross, lo, mid),
+                        new TileRange(distance, next, V, blockSize, kb, cross, mid, hi));
+                return;
+            }
+            final int blocks = (V + blockSize - 1) / blockSize;
+            final int bi;
+            final int bj;
+            if (cross) {
+                // [0, blocks) is row kb, [blocks, 2 * blocks) is column kb
+                bi = lo < blocks ? kb : lo - blocks;
+                bj = lo < blocks ? lo : kb;
+                if (bi == kb && bj == kb) {
+                    return;
+                }
+            } else {
+                bi = lo / blocks;
+                bj = lo % blocks;
+                if (bi == kb || bj == kb) {
+                    return;
+                }
+            }
+            updateTile(distance, next, V, blockSize, kb, bi, bj);
+        }
+    }
+
+    // random dense graph with about half the pairs connected
+    private static int[] randomGraph(int V, Random random) {
+        final int[] graph = new int[V * V];
+        for (int i = 0; i < V; i++) {
+            for (int j = 0; j < V; j++) {
+                graph[i * V + j] = i == j ? 0
+                        : random.nextBoolean() ? 1 + random.nextInt(1000) : Integer.MAX_VALUE;
+            }
+        }
+        return graph;
+    }
+
+    public static void main(String[] args) {
+        // same graphs as FloydWarshall, which uses Integer.MAX_VALUE for no edge
+        final int X = FloydWarshall.INF;
+        final int[][] graph = {
+                {0, 3, X, 5},
+                {2, 0, X, 4},
+                {X, 1, 0, X},
+                {X, X, 2, 0}};
+        final int[][] graphNegativeCycle = {
+                {0, 1, X, X},
+                {X, 0, -1, X},
+                {X, X, 0, -1},
+                {-1, X, X, 0}};
+        final int[] distance = flatten(graph);
+        System.out.println("graph with no negative cycle: "
+                + shortestPath(distance, 4, 2, ForkJoinPool.commonPool()));
+        System.out.println(Arrays.toString(distance));
+        System.out.println("graph with negative cycle: "
+                + !shortestPath(flatten(graphNegativeCycle), 4, 2, ForkJoinPool.commonPool()));
+
+        // benchmark against the textbook triple loop
+        final int[] sizes = {512, 2048, 4096};
+        final int[] vertices = args.length > 0 ? new int[args.length] : sizes;
+        for (int a = 0; a < args.length; a++) {
+            vertices[a] = Integer.parseInt(args[a]);
+        }
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool single = new ForkJoinPool(1);
+        // compile every variant before timing it, so that no timed run pays
+        // for JIT warm-up
+        for (int warmup = 0; warmup < 5; warmup++) {
+            final int[] input = randomGraph(300, new Random(warmup));
+            shortestPath(input.clone(), 300);
+            shortestPath(input.clone(), 300, DEFAULT_BLOCK_SIZE, single);
+            FloydWarshall.computeShortestPath(unflatten(input, 300));
+        }
+        final int runs = 3;
+        for (int V : vertices) {
+            final int[] input = randomGraph(V, new Random(V));
+            final List<int[]> blocked = copies(input, runs);
+            final long blockedTime = bestTime(blocked, matrix -> shortestPath(matrix, V));
+            final List<int[]> blockedSingle = copies(input, runs);
+            final long singleTime = bestTime(blockedSingle,
+                    matrix -> shortestPath(matrix, V, DEFAULT_BLOCK_SIZE, single));
+            final List<int[][]> textbook = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                textbook.add(unflatten(input, V));
+            }
+            final long textbookTime = bestTime(textbook, FloydWarshall::computeShortestPath);
+            for (int i = 0; i < V; i++) {
+                for (int j = 0; j < V; j++) {
+                    final int expected = textbook.get(0)[i][j];
+                    if (expected != blocked.get(0)[i * V + j] || expected != blockedSingle.get(0)[i * V + j]) {
+                        throw new IllegalStateException("distance mismatch at " + i + "," + j);
+                    }
+                }
+            }
+            System.out.printf("V=%d, best of %d: textbook %d ms, blocked (1 thread) %d ms, "
+                            + "blocked (%d threads) %d ms, speedup %.2fx%n",
+                    V, runs, textbookTime / 1_000_000, singleTime / 1_000_000, threads,
+                    blockedTime / 1_000_000, (double) textbookTime / blockedTime);
+        }
+        single.shutdown();
+    }
+
+    private static List<int[]> copies(int[] input, int count) {
+        final List<int[]> copies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            copies.add(input.clone());
+        }
+        return copies;
+    }
+
+    private static int[][] unflatten(int[] distance, int V) {
+        final int[][] graph = new int[V][V];
+        for (int i = 0; i < V; i++) {
+            System.arraycopy(distance, i * V, graph[i], 0, V);
+        }
+        return graph;
+    }
+
+    // shortest time of running variant on each of the inputs, which are
+    // prepared beforehand so that copying them is not timed
+    private static <T> long bestTime(List<T> inputs, Consumer<T> variant) {
+        long best = Long.MAX_VALUE;
+        for (T input : inputs) {
+            final long start = System.nanoTime();
+            variant.accept(input);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,306 @@
+package dev.eddycyu.graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * All-pairs shortest path distances together with a next-hop matrix, so
+ * that the actual path between any pair of vertices can be reconstructed
+ * (e.g. for routing tables).
+ * <p>
+ * For every pair (i, j) the next-hop matrix holds the vertex that follows i
+ * on the shortest path to j, so the path is found by repeatedly looking up
+ * the next hop until j is reached. Paths are copied into a caller-supplied
+ * buffer, so no memory is allocated per lookup. Next hops are stored as
+ * chars (2 bytes per entry), which is half the footprint of an
+ * <code>int[][]</code> matrix.
+ * <p>
+ * Both matrices can be exported to a binary file and later memory-mapped, so
+ * a serving process can answer queries immediately without recomputing them
+ * and without copying the matrices onto the heap. The file layout is:
+ * <pre>
+ * int    magic
+ * int    version
+ * int    V
+ * int    1 if the graph has a negative cycle, 0 otherwise
+ * int[]  V * V distances, row-major
+ * char[] V * V next hops, row-major
+ * </pre>
+ * All values are little-endian.
+ * <p>
+ * Space Complexity: O(V^2)
+ * Time Complexity: O(V^3) to compute, O(path length) per path
+ *
+ * @see FloydWarshallBlocked
+ */
+public class FloydWarshallPaths {
+
+    private static final int MAGIC = 0x46575048; // "FWPH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    // a single mapping is limited to 2 GB, so matrices are mapped in
+    // segments of whole rows
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final int V;
+    private final boolean negativeCycle;
+    private final int rowsPerSegment;
+    private final IntBuffer[] distance;
+    private final CharBuffer[] next;
+
+    private FloydWarshallPaths(int V, boolean negativeCycle, int rowsPerSegment,
+                               IntBuffer[] distance, CharBuffer[] next) {
+        this.V = V;
+        this.negativeCycle = negativeCycle;
+        this.rowsPerSegment = rowsPerSegment;
+        this.distance = distance;
+        this.next = next;
+    }
+
+    /**
+     * Compute the shortest paths between all pairs of vertices.
+     *
+     * @param graph row-major V x V matrix; entry i * V + j is the weight of
+     *              edge i->j or Integer.MAX_VALUE if there is no edge, and the
+     *              diagonal is 0; it is overwritten with the distances
+     * @param V     number of vertices
+     * @return all-pairs shortest paths
+     */
+    public static FloydWarshallPaths compute(int[] graph, int V) {
+        final char[] next = new char[V * V];
+        final boolean ok = FloydWarshallBlocked.shortestPath(graph, next, V,
+                FloydWarshallBlocked.DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+        return new FloydWarshallPaths(V, !ok, Math.max(V, 1),
+                new IntBuffer[]{IntBuffer.wrap(graph)}, new CharBuffer[]{CharBuffer.wrap(next)});
+    }
+
+    public int vertexCount() {
+        return V;
+    }
+
+    /**
+     * @return true if the graph contains a negative cycle, in which case the
+     * distances and paths are not meaningful
+     */
+    public boolean hasNegativeCycle() {
+        return negativeCycle;
+    }
+
+    /**
+     * @param i source vertex
+     * @param j destination vertex
+     * @return shortest path distance from i to j; Integer.MAX_VALUE if unreachable
+     */
+    public int distance(int i, int j) {
+        return distance[i / rowsPerSegment].get((i % rowsPerSegment) * V + j);
+    }
+
+    /**
+     * @param i source vertex
+     * @param j destination vertex
+     * @return vertex after i on the shortest path from i to j; -1 if unreachable
+     */
+    public int nextHop(int i, int j) {
+        final char hop = next[i / rowsPerSegment].get((i % rowsPerSegment) * V + j);
+        return hop == FloydWarshallBlocked.NO_HOP ? -1 : hop;
+    }
+
+    /**
+     * Copy the shortest path from i to j into a caller-supplied buffer.
+     *
+     * @param i    source vertex
+     * @param j    destination vertex
+     * @param path buffer for the vertices on the path, from i to j; V
+     *             entries are always enough
+     * @return number of vertices on the path; 0 if j is unreachable from i
+     * @throws IllegalStateException if the graph has a negative cycle, since
+     *                               the next hops may then go round the cycle
+     *                               and never reach j
+     */
+    public int path(int i, int j, int[] path) {
+        if (negativeCycle) {
+            throw new IllegalStateException("paths are not defined in a graph with a negative cycle");
+        }
+        if (nextHop(i, j) == -1) {
+            return 0;
+        }
+        int length = 0;
+        path[length++] = i;
+        for (int vertex = i; vertex != j; ) {
+            // a shortest path visits each vertex at most once; more hops
+            // than that means the next-hop matrix is inconsistent
+            if (length == V) {
+                throw new IllegalStateException("next hops from " + i + " do not reach " + j
+                        + " within " + V + " vertices");
+            }
+            vertex = nextHop(vertex, j);
+            path[length++] = vertex;
+        }
+        return length;
+    }
+
+    /**
+     * Write the distance and next-hop matrices to a file that can be opened
+     * with {@link #map(Path)}. The matrices are flushed to the storage
+     * device before the header, so a file whose write did not finish is
+     * rejected by {@link #map(Path)} rather than read as zeroed matrices.
+     *
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        final int rows = rowsPerSegment(V);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long distanceStart = HEADER_BYTES;
+            final long nextStart = distanceStart + 4L * V * V;
+            for (int row = 0; row < V; row += rows) {
+                final int count = Math.min(rows, V - row);
+                final MappedByteBuffer distanceSegment = channel.map(FileChannel.MapMode.READ_WRITE,
+                        distanceStart + 4L * row * V, 4L * count * V);
+                final MappedByteBuffer nextSegment = channel.map(FileChannel.MapMode.READ_WRITE,
+                        nextStart + 2L * row * V, 2L * count * V);
+                final IntBuffer distanceOut = distanceSegment.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                final CharBuffer nextOut = nextSegment.order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+                for (int i = row; i < row + count; i++) {
+                    distanceOut.put(distanceRow(i));
+                    nextOut.put(nextRow(i));
+                }
+                distanceSegment.force();
+                nextSegment.force();
+            }
+
+            // the header goes last, so it only becomes valid once the
+            // matrices are on disk
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(negativeCycle ? 1 : 0);
+            header.force();
+        }
+    }
+
+    /**
+     * Memory-map a file written by {@link #write(Path)}. The matrices are read
+     * directly from the page cache and are not copied onto the heap.
+     *
+     * @param file file to map
+     * @return all-pairs shortest paths backed by the file
+     * @throws IOException if the file cannot be read or is not in the expected format
+     */
+    public static FloydWarshallPaths map(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a shortest path file: " + file);
+            }
+            final int V = header.getInt();
+            final boolean negativeCycle = header.getInt() != 0;
+            final long distanceStart = HEADER_BYTES;
+            final long nextStart = distanceStart + 4L * V * V;
+            if (channel.size() < nextStart + 2L * V * V) {
+                throw new IOException("truncated shortest path file: " + file);
+            }
+
+            // the mappings stay valid after the channel is closed
+            final int rows = rowsPerSegment(V);
+            final int segments = (V + rows - 1) / rows;
+            final IntBuffer[] distance = new IntBuffer[segments];
+            final CharBuffer[] next = new CharBuffer[segments];
+            for (int s = 0; s < segments; s++) {
+                final int row = s * rows;
+                final int count = Math.min(rows, V - row);
+                distance[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        distanceStart + 4L * row * V, 4L * count * V)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                next[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        nextStart + 2L * row * V, 2L * count * V)
+                        .order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+            }
+            return new FloydWarshallPaths(V, negativeCycle, rows, distance, next);
+        }
+    }
+
+    private static int rowsPerSegment(int V) {
+        return (int) Math.max(1, Math.min(V, SEGMENT_BYTES / (4L * Math.max(V, 1))));
+    }
+
+    private IntBuffer distanceRow(int i) {
+        final IntBuffer row = distance[i / rowsPerSegment].duplicate();
+        final int start = (i % rowsPerSegment) * V;
+        row.limit(start + V).position(start);
+        return row;
+    }
+
+    private CharBuffer nextRow(int i) {
+        final CharBuffer row = next[i / rowsPerSegment].duplicate();
+        final int start = (i % rowsPerSegment) * V;
+        row.limit(start + V).position(start);
+        return row;
+    }
+
+    private void printShortestPaths() {
+        if (negativeCycle) {
+            System.out.println("graph contains negative cycle");
+            return;
+        }
+        final int[] path = new int[V];
+        for (int i = 0; i < V; i++) {
+            for (int j = 0; j < V; j++) {
+                final int length = path(i, j, path);
+                if (length > 0) {
+                    System.out.printf("Distance from vertex[%d] to vertex[%d] is %d: ", i, j, distance(i, j));
+                    for (int p = 0; p < length; p++) {
+                        System.out.print(path[p]);
+                        if (p + 1 < length) {
+                            System.out.print("->");
+                        }
+                    }
+                    System.out.println();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // same graph as FloydWarshall
+        final int X = FloydWarshall.INF;
+        final int[][] graph = {
+                {0, 3, X, 5},
+                {2, 0, X, 4},
+                {X, 1, 0, X},
+                {X, X, 2, 0}};
+        final FloydWarshallPaths paths = compute(FloydWarshallBlocked.flatten(graph), graph.length);
+        paths.printShortestPaths();
+
+        // export, map and check that the mapped copy answers the same
+        final Path file = Files.createTempFile("floyd-warshall", ".bin");
+        try {
+            paths.write(file);
+            final FloydWarshallPaths mapped = map(file);
+            System.out.println();
+            System.out.println("memory-mapped from " + file + ":");
+            mapped.printShortestPaths();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // same graph with a negative cycle as FloydWarshall
+        final int[][] graphNegativeCycle = {
+                {0, 1, X, X},
+                {X, 0, -1, X},
+                {X, X, 0, -1},
+                {-1, X, X, 0}};
+        System.out.println();
+        compute(FloydWarshallBlocked.flatten(graphNegativeCycle), graphNegativeCycle.length).printShortestPaths();
+    }
+}
@@ -0,0 +1,328 @@
+package dev.eddycyu.graph;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compact binary file format for graphs in compressed sparse row (CSR)
+ * format, so that real graphs can be loaded instead of hard-coding an
+ * adjacency matrix in <code>main</code>.
+ * <p>
+ * The file layout is:
+ * <pre>
+ * int   magic
+ * int   version
+ * int   V (number of vertices)
+ * int   E (number of edges)
+ * int[] 4 reserved ints
+ * int[] V + 1 offsets
+ * int[] E targets
+ * int[] E weights
+ * </pre>
+ * All values are little-endian. The arrays are read with
+ * <code>FileChannel.map</code> as <code>IntBuffer</code> views (see
+ * {@link MappedGraph}), so opening a file does not copy anything onto the
+ * heap, and the algorithms that take a {@link CsrView} run on the mapping.
+ * <p>
+ * Text edge lists with one <code>src dst weight</code> line per edge can be
+ * converted in two streaming passes over the input: the first pass counts
+ * the out-degree of each vertex, the second pass writes each edge straight
+ * into its slot in the mapped output. Only O(V) memory is used, whatever the
+ * number of edges. Blank lines and lines starting with '#' are skipped; any
+ * other line must hold exactly three integers.
+ *
+ * @see MappedGraph
+ */
+public class GraphFile {
+
+    private static final int MAGIC = 0x47525343; // "CSRG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // the V + 1 offsets are built in an array, and HotSpot allocates
+    // arrays of at most Integer.MAX_VALUE - 8 elements
+    private static final int MAX_VERTICES = Integer.MAX_VALUE - 9;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Write a graph to a file.
+     *
+     * @param graph graph to write
+     * @param file  file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CsrGraph graph, Path file) throws IOException {
+        final int V = graph.vertexCount();
+        final int E = graph.edgeCount();
+        try (final FileChannel channel = create(file)) {
+            writeHeader(channel, V, E);
+            put(map(channel, FileChannel.MapMode.READ_WRITE, offsetsStart(), V + 1L), graph.offsets);
+            put(map(channel, FileChannel.MapMode.READ_WRITE, targetsStart(V), E), graph.targets);
+            put(map(channel, FileChannel.MapMode.READ_WRITE, weightsStart(V, E), E), graph.weights);
+        }
+    }
+
+    /**
+     * Memory-map a graph file.
+     *
+     * @param file file to map
+     * @return graph backed by the file
+     * @throws IOException if the file cannot be read or is not in the expected format
+     */
+    public static MappedGraph map(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a graph file: " + file);
+            }
+            final int V = header.getInt();
+            final int E = header.getInt();
+            if (channel.size() < weightsStart(V, E) + 4L * E) {
+                throw new IOException("truncated graph file: " + file);
+            }
+            // the mappings stay valid after the channel is closed
+            return new MappedGraph(V, E,
+                    map(channel, FileChannel.MapMode.READ_ONLY, offsetsStart(), V + 1L),
+                    map(channel, FileChannel.MapMode.READ_ONLY, targetsStart(V), E),
+                    map(channel, FileChannel.MapMode.READ_ONLY, weightsStart(V, E), E));
+        }
+    }
+
+    /**
+     * Convert a text edge list with one <code>src dst weight</code> line per
+     * edge into a graph file. The number of vertices is one more than the
+     * largest vertex id, which must be less than Integer.MAX_VALUE - 9.
+     *
+     * @param edgeList text edge list
+     * @param file     graph file to write
+     * @throws IOException if a file cannot be read or written, or a line is malformed
+     */
+    public static void convert(Path edgeList, Path file) throws IOException {
+        final int[] edge = new int[3];
+
+        // pass 1: count out-degrees
+        int[] degree = new int[1024];
+        int V = 0;
+        long E = 0;
+        try (final BufferedReader reader = Files.newBufferedReader(edgeList, StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!parseEdge(line, lineNumber, edge)) {
+                    continue;
+                }
+                V = Math.max(V, Math.max(edge[0], edge[1]) + 1);
+                if (V > degree.length) {
+                    // parseEdge keeps V at most MAX_VERTICES, so doubling is
+                    // capped there rather than overflowing
+                    degree = Arrays.copyOf(degree, Math.max(V, (int) Math.min(2L * degree.length, MAX_VERTICES)));
+                }
+                degree[edge[0]]++;
+                E++;
+            }
+        }
+        if (E > Integer.MAX_VALUE) {
+            throw new IOException("too many edges: " + E);
+        }
+
+        // prefix sums of the degrees are the offsets
+        final int[] offsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + degree[v];
+        }
+        final int[] next = degree;
+        System.arraycopy(offsets, 0, next, 0, V);
+
+        // pass 2: write each edge into its slot
+        try (final FileChannel channel = create(file)) {
+            writeHeader(channel, V, (int) E);
+            put(map(channel, FileChannel.MapMode.READ_WRITE, offsetsStart(), V + 1L), offsets);
+            final IntBuffer[] targets = map(channel, FileChannel.MapMode.READ_WRITE, targetsStart(V), E);
+            final IntBuffer[] weights = map(channel, FileChannel.MapMode.READ_WRITE, weightsStart(V, (int) E), E);
+            try (final BufferedReader reader = Files.newBufferedReader(edgeList, StandardCharsets.UTF_8)) {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (!parseEdge(line, lineNumber, edge)) {
+                        continue;
+                    }
+                    final int e = next[edge[0]]++;
+                    targets[e >>> MappedGraph.SEGMENT_SHIFT].put(e & (MappedGraph.SEGMENT_INTS - 1), edge[1]);
+                    weights[e >>> MappedGraph.SEGMENT_SHIFT].put(e & (MappedGraph.SEGMENT_INTS - 1), edge[2]);
+                }
+            }
+        }
+    }
+
+    // parse "src dst weight" into edge; returns false for blank and comment
+    // lines, and rejects anything but whitespace after the weight
+    private static boolean parseEdge(String line, long lineNumber, int[] edge) throws IOException {
+        int i = 0;
+        final int n = line.length();
+        for (int field = 0; field < 3; field++) {
+            while (i < n && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (field == 0 && (i == n || line.charAt(i) == '#')) {
+                return false;
+            }
+            final boolean negative = i < n && line.charAt(i) == '-';
+            if (negative) {
+                i++;
+            }
+            final int start = i;
+            long value = 0;
+            while (i < n && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+                value = value * 10 + (line.charAt(i++) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new IOException("value out of range on line " + lineNumber);
+                }
+            }
+            if (i == start || (negative && field < 2)) {
+                throw new IOException("malformed edge on line " + lineNumber + ": " + line);
+            }
+            if (field < 2 && value >= MAX_VERTICES) {
+                throw new IOException("vertex id out of range on line " + lineNumber + ": " + line);
+            }
+            edge[field] = (int) (negative ? -value : value);
+        }
+        while (i < n && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (i < n) {
+            throw new IOException("unexpected input after weight on line " + lineNumber + ": " + line);
+        }
+        return true;
+    }
+
+    static FileChannel create(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void writeHeader(FileChannel channel, int V, int E) throws IOException {
+        final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(E);
+    }
+
+    private static long offsetsStart() {
+        return HEADER_BYTES;
+    }
+
+    private static long targetsStart(int V) {
+        return offsetsStart() + 4L * (V + 1);
+    }
+
+    private static long weightsStart(int V, int E) {
+        return targetsStart(V) + 4L * E;
+    }
+
+    // map count ints starting at byte position start in segments of at most
+    // MappedGraph.SEGMENT_INTS ints
+    static IntBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long start, long count)
+            throws IOException {
+        final int segments = (int) Math.max(1, (count + MappedGraph.SEGMENT_INTS - 1) / MappedGraph.SEGMENT_INTS);
+        final IntBuffer[] buffers = new IntBuffer[segments];
+        for (int s = 0; s < segments; s++) {
+            final long first = (long) s * MappedGraph.SEGMENT_INTS;
+            final long length = Math.min(MappedGraph.SEGMENT_INTS, count - first);
+            buffers[s] = channel.map(mode, start + 4L * first, 4L * length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return buffers;
+    }
+
+    static void put(IntBuffer[] buffers, int[] array) {
+        int position = 0;
+        for (IntBuffer buffer : buffers) {
+            final int count = buffer.remaining();
+            buffer.put(array, position, count);
+            position += count;
+        }
+    }
+
+    /**
+     * Convert a text edge list into a graph file, or run a round trip demo
+     * when no arguments are given.
+     *
+     * @param args [0] text edge list with one "src dst weight" line per edge
+     *             [1] graph file to write
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2) {
+            final long start = System.nanoTime();
+            convert(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.printf("converted %s to %s in %d ms%n",
+                    args[0], args[1], (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        // round trip a random graph through a text edge list and a graph file
+        final CsrGraph graph = CsrGraph.random(100_000, 3, 100, new Random(42));
+        final Path text = Files.createTempFile("graph", ".txt");
+        final Path binary = Files.createTempFile("graph", ".csr");
+        try {
+            try (final BufferedWriter writer = Files.newBufferedWriter(text, StandardCharsets.UTF_8)) {
+                writer.write("# src dst weight");
+                writer.newLine();
+                for (int u = 0; u < graph.vertexCount(); u++) {
+                    for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                        writer.write(u + " " + graph.targets[e] + " " + graph.weights[e]);
+                        writer.newLine();
+                    }
+                }
+            }
+            long start = System.nanoTime();
+            convert(text, binary);
+            System.out.printf("converted %d edges in %d ms (%d bytes)%n",
+                    graph.edgeCount(), (System.nanoTime() - start) / 1_000_000, Files.size(binary));
+
+            start = System.nanoTime();
+            final MappedGraph mapped = map(binary);
+            System.out.printf("mapped %d vertices and %d edges in %d us%n",
+                    mapped.vertexCount(), mapped.edgeCount(), (System.nanoTime() - start) / 1_000);
+
+            // the vertex with the largest id may have no edges, in which case
+            // it is not in the edge list
+            final CsrGraph loaded = mapped.toCsrGraph();
+            final int V = loaded.vertexCount();
+            if (!Arrays.equals(Arrays.copyOf(graph.offsets, V + 1), loaded.offsets)
+                    || !Arrays.equals(graph.targets, loaded.targets)
+                    || !Arrays.equals(graph.weights, loaded.weights)) {
+                throw new IllegalStateException("graph changed in round trip");
+            }
+            // the algorithms that take a CsrView run on the mapped buffers
+            start = System.nanoTime();
+            final int[] distance = DijkstraCsr.shortestPath(mapped, 0);
+            final long mappedTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final int[] expected = DijkstraCsr.shortestPath(loaded, 0);
+            final long heapTime = System.nanoTime() - start;
+            if (!Arrays.equals(expected, distance)) {
+                throw new IllegalStateException("distances differ between the mapped and heap graph");
+            }
+            System.out.printf("Dijkstra from vertex[0]: %d ms on the mapped graph, %d ms on a heap copy%n",
+                    mappedTime / 1_000_000, heapTime / 1_000_000);
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package dev.eddycyu.graph;
+
+/**
+ * Indexed d-ary min-heap of vertices keyed by an int priority.
+ * <p>
+ * Each vertex in [0, capacity) appears in the heap at most once and its
+ * position is tracked in an index array, so the key of a vertex that is
+ * already in the heap can be lowered in place (decrease-key) instead of
+ * inserting a duplicate entry. A 4-ary layout is used because it halves the
+ * height of the heap compared to a binary heap while keeping all children
+ * of a node in the same cache line.
+ * <p>
+ * The heap never allocates after construction; {@link #clear()} only visits
+ * the entries that are still in the heap, so it can be reused across many
+ * searches.
+ * <p>
+ * Time Complexity: O(log n) insert, decrease-key and poll; O(1) peek
+ * Space Complexity: O(capacity)
+ * <p>
+ * https://en.wikipedia.org/wiki/D-ary_heap
+ */
+public class IndexedMinHeap {
+
+    private static final int D = 4;
+
+    private final int[] heap;     // vertex at each heap position
+    private final int[] keys;     // key at each heap position
+    private final int[] position; // heap position of each vertex, or -1
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            position[i] = -1;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return position[vertex] != -1;
+    }
+
+    public int peekKey() {
+        return keys[0];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Insert vertex with the given key, or lower its key if it is already in
+     * the heap with a larger key.
+     *
+     * @param vertex vertex to insert or update
+     * @param key    new key
+     */
+    public void insertOrDecrease(int vertex, int key) {
+        final int i = position[vertex];
+        if (i == -1) {
+            insert(vertex, key);
+        } else if (key < keys[i]) {
+            siftUp(i, vertex, key);
+        }
+    }
+
+    public void insert(int vertex, int key) {
+        siftUp(size++, vertex, key);
+    }
+
+    public void decreaseKey(int vertex, int key) {
+        siftUp(position[vertex], vertex, key);
+    }
+
+    /**
+     * Remove the vertex with the minimum key.
+     *
+     * @return vertex with the minimum key
+     */
+    public int poll() {
+        final int min = heap[0];
+        position[min] = -1;
+        final int last = --size;
+        if (last > 0) {
+            siftDown(0, heap[last], keys[last]);
+        }
+        return min;
+    }
+
+    /**
+     * Remove all vertices from the heap in time proportional to the number of
+     * vertices still in the heap.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i, int vertex, int key) {
+        // move parents down until the slot for key is found
+        while (i > 0) {
+            final int parent = (i - 1) / D;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        place(i, vertex, key);
+    }
+
+    private void siftDown(int i, int vertex, int key) {
+        // move the smallest child up until the slot for key is found
+        while (true) {
+            final int first = i * D + 1;
+            if (first >= size) {
+                break;
+            }
+            final int end = Math.min(first + D, size);
+            int child = first;
+            for (int c = first + 1; c < end; c++) {
+                if (keys[c] < keys[child]) {
+                    child = c;
+                }
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        place(i, vertex, key);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        position[heap[to]] = to;
+    }
+
+    private void place(int i, int vertex, int key) {
+        heap[i] = vertex;
+        keys[i] = key;
+        position[vertex] = i;
+    }
+}
@@ -0,0 +1,169 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How to find the shortest path between ALL pairs of vertices in a sparse
+ * weighted graph with negative weights. This implementation uses Johnson's
+ * algorithm.
+ * <p>
+ * A virtual source vertex with a zero weight edge to every vertex is added
+ * and one Bellman-Ford run from it computes a potential h(v) for each
+ * vertex. Every edge u->v is then reweighted to w(u, v) + h(u) - h(v), which
+ * is never negative and preserves shortest paths, so Dijkstra's algorithm
+ * can be run from every vertex in parallel (see {@link DijkstraBatch}). The
+ * distances are converted back with d(u, v) = d'(u, v) - h(u) + h(v).
+ * <p>
+ * Unlike {@link FloydWarshall}, the running time and working memory grow
+ * with the number of edges. Rows can be streamed to a consumer as they are
+ * computed, so the V x V result never has to be held in memory.
+ * <p>
+ * Space Complexity: O(V + E) plus O(V) per worker thread
+ * Time Complexity: O(VE log V / P) with P threads
+ * <p>
+ * https://en.wikipedia.org/wiki/Johnson%27s_algorithm
+ *
+ * @see BellmanFordEdgeList
+ * @see DijkstraBatch
+ */
+public class Johnson {
+
+    private Johnson() {
+    }
+
+    /**
+     * Compute the shortest path distance between all pairs of vertices.
+     *
+     * @param graph     edge list; weights may be negative
+     * @param distances output row-major V x V matrix; Integer.MAX_VALUE for
+     *                  unreachable pairs
+     * @return false if the graph contains a negative cycle
+     */
+    public static boolean shortestPaths(EdgeList graph, int[] distances) {
+        final int V = graph.vertexCount;
+        if ((long) V * V > distances.length) {
+            throw new IllegalArgumentException("distances must hold V * V entries");
+        }
+        return shortestPaths(graph, (source, row) -> System.arraycopy(row, 0, distances, source * V, V),
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the shortest path distance between all pairs of vertices and
+     * stream each row to a consumer.
+     *
+     * @param graph    edge list; weights may be negative
+     * @param consumer receives the distances from each source vertex (the
+     *                 index passed to the consumer is the source vertex); it
+     *                 is called concurrently from the worker threads
+     * @param pool     pool to run on
+     * @return false if the graph contains a negative cycle, in which case the
+     * consumer is never called
+     */
+    public static boolean shortestPaths(EdgeList graph, DijkstraBatch.RowConsumer consumer, ForkJoinPool pool) {
+        final int V = graph.vertexCount;
+        final int E = graph.edgeCount();
+
+        // potential of each vertex from a virtual source V with a zero weight
+        // edge to every vertex
+        final int[] src = Arrays.copyOf(graph.source, E + V);
+        final int[] dst = Arrays.copyOf(graph.target, E + V);
+        final int[] weight = Arrays.copyOf(graph.weight, E + V);
+        for (int v = 0; v < V; v++) {
+            src[E + v] = V;
+            dst[E + v] = v;
+        }
+        final int[] potential = new int[V + 1];
+        if (!BellmanFordEdgeList.shortestPath(new EdgeList(V + 1, src, dst, weight), V,
+                potential, new int[V + 1])) {
+            return false;
+        }
+
+        // reweight every edge so that it is non-negative
+        final int[] reweighted = new int[E];
+        for (int e = 0; e < E; e++) {
+            reweighted[e] = graph.weight[e] + potential[graph.source[e]] - potential[graph.target[e]];
+        }
+        final CsrGraph csr = CsrGraph.fromEdges(V, graph.source, graph.target, reweighted);
+
+        // run Dijkstra from every vertex and undo the reweighting
+        final int[] sources = new int[V];
+        for (int v = 0; v < V; v++) {
+            sources[v] = v;
+        }
+        DijkstraBatch.shortestPaths(csr, sources, (source, row) -> {
+            final int h = potential[source];
+            for (int v = 0; v < V; v++) {
+                if (row[v] != Integer.MAX_VALUE) {
+                    row[v] = row[v] - h + potential[v];
+                }
+            }
+            consumer.accept(source, row);
+        }, pool);
+        return true;
+    }
+
+    public static void main(String[] args) {
+        // same graph as FloydWarshall
+        final int X = FloydWarshall.INF;
+        final int[][] graph = {
+                {0, 3, X, 5},
+                {2, 0, X, 4},
+                {X, 1, 0, X},
+                {X, X, 2, 0}};
+        final int[][] adjacency = new int[4][4];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                adjacency[i][j] = graph[i][j] == X ? 0 : graph[i][j];
+            }
+        }
+        final int[] distances = new int[16];
+        System.out.println("graph with no negative cycle: "
+                + shortestPaths(EdgeList.fromMatrix(adjacency), distances));
+        System.out.println(Arrays.toString(distances));
+
+        // sparse graph with negative weights; validate a sample of rows
+        // against Bellman-Ford and stream the rest into a checksum
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        final int degree = 4;
+        final Random random = new Random(42);
+        final int[] potential = new int[V];
+        for (int v = 0; v < V; v++) {
+            potential[v] = random.nextInt(50);
+        }
+        final int E = V * degree;
+        final int[] src = new int[E];
+        final int[] dst = new int[E];
+        final int[] weight = new int[E];
+        for (int e = 0; e < E; e++) {
+            src[e] = random.nextInt(V);
+            dst[e] = random.nextInt(V);
+            weight[e] = 1 + random.nextInt(100) + potential[src[e]] - potential[dst[e]];
+        }
+        final EdgeList sparse = new EdgeList(V, src, dst, weight);
+        final int[] expected = new int[V];
+        final int[] predecessor = new int[V];
+        final long[] checksum = new long[V];
+        final long start = System.nanoTime();
+        shortestPaths(sparse, (source, row) -> {
+            long sum = 0;
+            for (int d : row) {
+                sum += d;
+            }
+            checksum[source] = sum;
+            if (source % 1000 == 0) {
+                synchronized (expected) {
+                    BellmanFordEdgeList.shortestPath(sparse, source, expected, predecessor);
+                    if (!Arrays.equals(expected, row)) {
+                        throw new IllegalStateException("distance mismatch for source " + source);
+                    }
+                }
+            }
+        }, ForkJoinPool.commonPool());
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("V=%d E=%d: %d rows streamed in %d ms (checksum %d)%n",
+                V, E, V, elapsed / 1_000_000, Arrays.stream(checksum).sum());
+    }
+}
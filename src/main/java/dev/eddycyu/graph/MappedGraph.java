@@ -0,0 +1,89 @@
+package dev.eddycyu.graph;
+
+import java.nio.IntBuffer;
+
+/**
+ * Read-only view of a graph in compressed sparse row (CSR) format whose
+ * arrays live in a memory-mapped file (see {@link GraphFile}) instead of on
+ * the heap.
+ * <p>
+ * A single mapping is limited to 2 GB, so each array is split into segments
+ * of {@link #SEGMENT_INTS} ints and an index is resolved with a shift and a
+ * mask. Opening a graph only maps the file; pages are read by the operating
+ * system the first time they are touched, so even a graph with a billion
+ * edges opens in milliseconds and is shared between processes through the
+ * page cache. The algorithms that take a {@link CsrView} run on the mapped
+ * buffers directly.
+ * <p>
+ * Space Complexity: O(1) heap
+ *
+ * @see CsrGraph
+ */
+public class MappedGraph implements CsrView {
+
+    static final int SEGMENT_SHIFT = 28;
+    static final int SEGMENT_INTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_INTS - 1;
+
+    private final int vertexCount;
+    private final int edgeCount;
+    private final IntBuffer[] offsets;
+    private final IntBuffer[] targets;
+    private final IntBuffer[] weights;
+
+    MappedGraph(int vertexCount, int edgeCount, IntBuffer[] offsets, IntBuffer[] targets, IntBuffer[] weights) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int offset(int vertex) {
+        return offsets[vertex >>> SEGMENT_SHIFT].get(vertex & SEGMENT_MASK);
+    }
+
+    @Override
+    public int target(int edge) {
+        return targets[edge >>> SEGMENT_SHIFT].get(edge & SEGMENT_MASK);
+    }
+
+    @Override
+    public int weight(int edge) {
+        return weights[edge >>> SEGMENT_SHIFT].get(edge & SEGMENT_MASK);
+    }
+
+    /**
+     * Copy the graph onto the heap, e.g. to run the algorithms that only
+     * take a {@link CsrGraph}.
+     *
+     * @return heap copy of the graph
+     */
+    public CsrGraph toCsrGraph() {
+        return new CsrGraph(copy(offsets, vertexCount + 1), copy(targets, edgeCount), copy(weights, edgeCount));
+    }
+
+    static int[] copy(IntBuffer[] segments, int length) {
+        final int[] array = new int[length];
+        int position = 0;
+        for (IntBuffer segment : segments) {
+            final IntBuffer source = segment.duplicate();
+            source.rewind();
+            final int count = Math.min(source.remaining(), length - position);
+            source.get(array, position, count);
+            position += count;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,201 @@
+package dev.eddycyu.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How to find a negative cycle (where the sum of the edges in a cycle is
+ * negative) in a weighted directed graph and return its vertices. This
+ * implementation uses the Bellman-Ford algorithm with periodic cycle checks
+ * on the predecessor graph.
+ * <p>
+ * Every cycle in the predecessor graph that Bellman-Ford builds is a
+ * negative cycle, and once the graph has a negative cycle the predecessor
+ * graph eventually contains one. Instead of waiting for all V passes to
+ * finish, the predecessor graph is searched for a cycle after every V
+ * successful relaxations. Each search is O(V), so the amortized cost is O(1)
+ * per relaxation and a cycle is usually returned after a few passes.
+ * <p>
+ * A typical use is arbitrage detection: with an edge weight of
+ * -log(exchange rate) for each currency pair, a negative cycle is a sequence
+ * of trades that ends with more money than it started with.
+ * <p>
+ * Space Complexity: O(V + E)
+ * Time Complexity: O(VE)
+ * <p>
+ * https://en.wikipedia.org/wiki/Bellman%E2%80%93Ford_algorithm#Finding_negative_cycles
+ *
+ * @see BellmanFord
+ * @see BellmanFordEdgeList
+ */
+public class NegativeCycle {
+
+    private NegativeCycle() {
+    }
+
+    /**
+     * Find a negative cycle anywhere in the graph.
+     *
+     * @param graph edge list
+     * @return vertices of a negative cycle in edge order (the last vertex
+     * connects back to the first); empty if there is no negative cycle
+     */
+    public static int[] find(EdgeList graph) {
+        return find(graph, -1);
+    }
+
+    /**
+     * Find a negative cycle that is reachable from source.
+     *
+     * @param graph  edge list
+     * @param source source vertex; -1 to search the whole graph
+     * @return vertices of a negative cycle in edge order (the last vertex
+     * connects back to the first); empty if there is no negative cycle
+     */
+    public static int[] find(EdgeList graph, int source) {
+        final int V = graph.vertexCount;
+        final int E = graph.edgeCount();
+        final int[] src = graph.source;
+        final int[] dst = graph.target;
+        final int[] weight = graph.weight;
+        final int[] distance = new int[V];
+        final int[] predecessor = new int[V];
+        final int[] visited = new int[V];
+
+        if (source == -1) {
+            // behave as if a virtual source had a zero weight edge to every
+            // vertex, so that every cycle is reachable
+            Arrays.fill(distance, 0);
+        } else {
+            Arrays.fill(distance, Integer.MAX_VALUE);
+            distance[source] = 0;
+        }
+        Arrays.fill(predecessor, -1);
+
+        int relaxations = 0;
+        for (int pass = 0; pass < V; pass++) {
+            boolean changed = false;
+            for (int e = 0; e < E; e++) {
+                final int fromDistance = distance[src[e]];
+                if (fromDistance != Integer.MAX_VALUE) {
+                    final int newDistance = fromDistance + weight[e];
+                    if (newDistance < distance[dst[e]]) {
+                        distance[dst[e]] = newDistance;
+                        predecessor[dst[e]] = src[e];
+                        changed = true;
+                        // check the predecessor graph after every V relaxations
+                        if (++relaxations == V) {
+                            relaxations = 0;
+                            final int[] cycle = findPredecessorCycle(predecessor, visited);
+                            if (cycle.length > 0) {
+                                return cycle;
+                            }
+                        }
+                    }
+                }
+            }
+            if (!changed) {
+                return new int[0];
+            }
+        }
+        // distances still changed in pass V, so there is a negative cycle
+        return findPredecessorCycle(predecessor, visited);
+    }
+
+    // walk from each vertex towards the root of the predecessor graph; a walk
+    // that runs into a vertex visited by the same walk has found a cycle
+    private static int[] findPredecessorCycle(int[] predecessor, int[] visited) {
+        final int V = predecessor.length;
+        Arrays.fill(visited, -1);
+        for (int start = 0; start < V; start++) {
+            int vertex = start;
+            while (vertex != -1 && visited[vertex] == -1) {
+                visited[vertex] = start;
+                vertex = predecessor[vertex];
+            }
+            if (vertex != -1 && visited[vertex] == start) {
+                // vertex is on the cycle; collect the cycle backwards
+                int length = 1;
+                for (int v = predecessor[vertex]; v != vertex; v = predecessor[v]) {
+                    length++;
+                }
+                final int[] cycle = new int[length];
+                int v = vertex;
+                for (int i = length - 1; i >= 0; i--) {
+                    cycle[i] = v;
+                    v = predecessor[v];
+                }
+                return cycle;
+            }
+        }
+        return new int[0];
+    }
+
+    public static void main(String[] args) {
+        // same graph as BellmanFord; negative cycle: 0->2->3->0
+        final int[][] graphNegativeCycle = new int[][]{
+                {0, 0, -1, 2, 0, 0, 0, 0, 0},
+                {0, 0, 2, 0, 0, 3, 0, 0, 0},
+                {1, 2, 0, 1, 3, 0, 0, 0, 0},
+                {-2, 0, 1, 0, 0, 0, 1, 0, 0},
+                {0, 0, 3, 0, 0, 2, 0, 0, 0},
+                {0, 3, 0, 0, 2, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0, 1, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 4, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0, 2, 0}};
+        System.out.println("negative cycle: "
+                + Arrays.toString(find(EdgeList.fromMatrix(graphNegativeCycle), 0)));
+
+        /*
+         * arbitrage: weight = -log(rate) scaled to an integer
+         * USD->EUR = 0.9, EUR->GBP = 0.9, GBP->USD = 1.25 (product 1.0125)
+         */
+        final String[] currencies = {"USD", "EUR", "GBP"};
+        final double[][] rates = {{0, 0.9, 0}, {0, 0, 0.9}, {1.25, 0, 0}};
+        final int[][] market = new int[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                if (rates[i][j] != 0) {
+                    market[i][j] = (int) Math.round(-Math.log(rates[i][j]) * 1_000_000);
+                }
+            }
+        }
+        final int[] arbitrage = find(EdgeList.fromMatrix(market));
+        System.out.print("arbitrage: ");
+        for (int vertex : arbitrage) {
+            System.out.print(currencies[vertex] + "->");
+        }
+        System.out.println(currencies[arbitrage[0]]);
+
+        // large graph with a planted negative cycle
+        final int V = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int degree = 5;
+        final Random random = new Random(42);
+        final int E = V * degree + 3;
+        final int[] src = new int[E];
+        final int[] dst = new int[E];
+        final int[] weight = new int[E];
+        for (int e = 0; e < V * degree; e++) {
+            src[e] = random.nextInt(V);
+            dst[e] = random.nextInt(V);
+            weight[e] = 1 + random.nextInt(100);
+        }
+        final int a = random.nextInt(V);
+        final int b = random.nextInt(V);
+        final int c = random.nextInt(V);
+        src[E - 3] = a;
+        dst[E - 3] = b;
+        weight[E - 3] = 5;
+        src[E - 2] = b;
+        dst[E - 2] = c;
+        weight[E - 2] = 5;
+        src[E - 1] = c;
+        dst[E - 1] = a;
+        weight[E - 1] = -11;
+        final long start = System.nanoTime();
+        final int[] cycle = find(new EdgeList(V, src, dst, weight));
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("V=%d E=%d: found %s (planted [%d, %d, %d]) in %d ms%n",
+                V, E, Arrays.toString(cycle), a, b, c, elapsed / 1_000_000);
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
  * Space Complexity: O(1)
  *
  * @see BinarySearchRecursion
+ * @see EytzingerSearch
  */
 public class BinarySearchIteration {
 
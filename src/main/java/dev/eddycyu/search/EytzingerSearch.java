@@ -0,0 +1,457 @@
+package dev.eddycyu.search;
+
+import dev.eddycyu.random.Generator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Binary search over an Eytzinger (breadth-first) layout.
+ * <p>
+ * Given a sorted array of elements, search for a given target element in the
+ * array. The elements are first copied into the order of a breadth-first
+ * walk of the implicit binary search tree: the root (middle element) at index
+ * 1, and the children of the node at index k at 2k and 2k + 1.
+ * <p>
+ * Compared to {@link BinarySearchIteration} over the sorted array:
+ * <ul>
+ * <li>The first levels of every search touch the same few cache lines at the
+ * front of the array, which stay in cache. In a sorted array, they are
+ * spread over the whole array.</li>
+ * <li>The 16 nodes four levels below a node are consecutive, so they share
+ * one or two cache lines, and one load ahead brings in several levels of
+ * the descent.</li>
+ * <li>The descent <code>k = 2k + (b[k] &lt; target)</code> has no branch
+ * that depends on the data, so there are no mispredictions. The equality
+ * test happens once at the end, after the lower bound is found. The
+ * lower bound's index is recovered from k by dropping the trailing 1 bits
+ * of k (the right turns after the last left turn) and one more bit.</li>
+ * </ul>
+ * Java has no prefetch instruction, so each step of the descent also loads
+ * the first of the descendants a cache line's worth of levels below (four
+ * levels for ints, three for longs). The load does not depend on the
+ * comparison, so it is in flight while the next levels are compared, like
+ * the software prefetch of the C versions. Without it, each level of a
+ * branchless descent waits for the previous one to come from memory, and a
+ * plain binary search, whose branch prediction loads ahead speculatively,
+ * is faster on arrays that do not fit in cache. The loaded values are
+ * ANDed with <code>tree[0]</code>, which is never filled and so always 0,
+ * and ORed into the result: the JIT cannot prove the mask is 0, so it keeps
+ * the loads, and the search writes no state.
+ * <p>
+ * Strings cannot be compared without a branch or a pointer dereference, so
+ * {@link OfString} searches over the first four chars of each string packed
+ * into a <code>long</code>. The strings that share the target's prefix form a
+ * contiguous range of the sorted array, which is usually short, and the
+ * range is then searched with <code>compareTo</code>.
+ * <p>
+ * https://en.wikipedia.org/wiki/Binary_tree#Arrays
+ * https://arxiv.org/abs/1509.05053 (Khuong and Morin, Array Layouts for
+ * Comparison-Based Searching)
+ * <p>
+ * Time Complexity: O(n) to build; O(log n) to search
+ * Space Complexity: O(n)
+ *
+ * @see BinarySearchIteration
+ */
+public class EytzingerSearch {
+
+    private EytzingerSearch() {
+    }
+
+    // lay out sorted[from, ...) in order over the subtree rooted at k;
+    // returns the index of the next element of sorted
+    private static int fill(int[] sorted, int[] tree, int from, int k) {
+        if (k < tree.length) {
+            from = fill(sorted, tree, from, 2 * k);
+            tree[k] = sorted[from++];
+            from = fill(sorted, tree, from, 2 * k + 1);
+        }
+        return from;
+    }
+
+    private static int fill(long[] sorted, long[] tree, int from, int k) {
+        if (k < tree.length) {
+            from = fill(sorted, tree, from, 2 * k);
+            tree[k] = sorted[from++];
+            from = fill(sorted, tree, from, 2 * k + 1);
+        }
+        return from;
+    }
+
+    // k after a descent that fell off the tree: drop the right turns made
+    // since the last left turn, and the left turn itself; 0 if every turn
+    // was to the right
+    private static int lowerBoundNode(int k) {
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    // index in the sorted array of node k of a tree with n nodes; n if k is
+    // 0. In a perfect tree of height h, the node at depth d and offset j in
+    // its level comes after (2j + 1) * 2^(h - 1 - d) - 1 nodes; the nodes
+    // missing from the last level are its rightmost ones, and those before
+    // node k are subtracted. Computing this is cheaper than loading it from
+    // a parallel array, which would cost one more cache miss per search.
+    private static int rank(int k, int n) {
+        if (k == 0) {
+            return n;
+        }
+        final int h = Integer.SIZE - Integer.numberOfLeadingZeros(n);
+        final int d = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(k);
+        // 2^h plus the position of node k in the in-order of the perfect tree
+        final long position = (2L * k + 1) << (h - 1 - d);
+        // the last-level nodes before node k are those below position / 2
+        final long missing = Math.max(0, (position >>> 1) - n - 1);
+        return (int) (position - (1L << h) - 1 - missing);
+    }
+
+    /**
+     * Eytzinger layout of a sorted <code>int[]</code>.
+     */
+    public static class OfInt {
+        // 16 ints per cache line
+        private static final int PREFETCH_LEVELS = 4;
+
+        private final int[] tree;
+
+        /**
+         * @param sorted elements in ascending order; not referenced afterwards
+         */
+        public OfInt(int[] sorted) {
+            super();
+            tree = new int[sorted.length + 1];
+            fill(sorted, tree, 0, 1);
+        }
+
+        /**
+         * @param target element to search for
+         * @return index in the sorted array of the first element that is not
+         * less than target; the length of the array if there is none
+         */
+        public int lowerBound(int target) {
+            final int[] b = tree;
+            final int n = b.length;
+            final int aheadLimit = n >>> PREFETCH_LEVELS;
+            int k = 1;
+            int touched = 0;
+            while (k < n) {
+                if (k < aheadLimit) {
+                    touched += b[k << PREFETCH_LEVELS];
+                }
+                k = 2 * k + (b[k] < target ? 1 : 0);
+            }
+            // b[0] is always 0; see the class comment
+            return rank(lowerBoundNode(k) | (touched & b[0]), n - 1);
+        }
+
+        /**
+         * @param target element to search for
+         * @return index of target in the sorted array; -1 if not found
+         */
+        public int search(int target) {
+            final int[] b = tree;
+            final int n = b.length;
+            final int aheadLimit = n >>> PREFETCH_LEVELS;
+            int k = 1;
+            int touched = 0;
+            while (k < n) {
+                if (k < aheadLimit) {
+                    touched += b[k << PREFETCH_LEVELS];
+                }
+                k = 2 * k + (b[k] < target ? 1 : 0);
+            }
+            // b[0] is always 0; see the class comment
+            k = lowerBoundNode(k) | (touched & b[0]);
+            return k != 0 && b[k] == target ? rank(k, n - 1) : -1;
+        }
+    }
+
+    /**
+     * Eytzinger layout of a sorted <code>long[]</code>.
+     */
+    public static class OfLong {
+        // 8 longs per cache line
+        private static final int PREFETCH_LEVELS = 3;
+
+        private final long[] tree;
+
+        /**
+         * @param sorted elements in ascending order; not referenced afterwards
+         */
+        public OfLong(long[] sorted) {
+            super();
+            tree = new long[sorted.length + 1];
+            fill(sorted, tree, 0, 1);
+        }
+
+        /**
+         * @param target element to search for
+         * @return index in the sorted array of the first element that is not
+         * less than target; the length of the array if there is none
+         */
+        public int lowerBound(long target) {
+            final long[] b = tree;
+            final int n = b.length;
+            final int aheadLimit = n >>> PREFETCH_LEVELS;
+            int k = 1;
+            long touched = 0;
+            while (k < n) {
+                if (k < aheadLimit) {
+                    touched += b[k << PREFETCH_LEVELS];
+                }
+                k = 2 * k + (b[k] < target ? 1 : 0);
+            }
+            // b[0] is always 0; see the class comment
+            return rank(lowerBoundNode(k) | (int) (touched & b[0]), n - 1);
+        }
+
+        /**
+         * @param target element to search for
+         * @return index of target in the sorted array; -1 if not found
+         */
+        public int search(long target) {
+            final long[] b = tree;
+            final int n = b.length;
+            final int aheadLimit = n >>> PREFETCH_LEVELS;
+            int k = 1;
+            long touched = 0;
+            while (k < n) {
+                if (k < aheadLimit) {
+                    touched += b[k << PREFETCH_LEVELS];
+                }
+                k = 2 * k + (b[k] < target ? 1 : 0);
+            }
+            // b[0] is always 0; see the class comment
+            k = lowerBoundNode(k) | (int) (touched & b[0]);
+            return k != 0 && b[k] == target ? rank(k, n - 1) : -1;
+        }
+    }
+
+    /**
+     * Eytzinger layout of the prefixes of a sorted <code>String[]</code>.
+     */
+    public static class OfString {
+        private final String[] sorted;
+        private final OfLong prefixes;
+
+        /**
+         * @param sorted strings in ascending order; kept to compare whole
+         *               strings, so it must not be changed afterwards
+         */
+        public OfString(String[] sorted) {
+            super();
+            this.sorted = sorted;
+            final long[] keys = new long[sorted.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = prefix(sorted[i]);
+            }
+            this.prefixes = new OfLong(keys);
+        }
+
+        // the first four chars, padded with 0, with the sign bit flipped so
+        // that signed order is the unsigned order of the chars; never less
+        // for a greater string
+        static long prefix(String s) {
+            long key = 0;
+            for (int i = 0; i < 4; i++) {
+                key = (key << 16) | (i < s.length() ? s.charAt(i) : 0);
+            }
+            return key ^ Long.MIN_VALUE;
+        }
+
+        /**
+         * @param target string to search for
+         * @return index of target in the sorted array; -1 if not found
+         */
+        public int search(String target) {
+            final long key = prefix(target);
+            int lo = prefixes.lowerBound(key);
+            int hi = key == Long.MAX_VALUE ? sorted.length : prefixes.lowerBound(key + 1);
+            // the strings in [lo, hi) share the target's prefix
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                final int result = sorted[mid].compareTo(target);
+                if (result > 0) {
+                    hi = mid;
+                } else if (result < 0) {
+                    lo = mid + 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Benchmark the Eytzinger layout against binary search over the sorted
+     * array.
+     *
+     * @param args sizes to benchmark with (default 1000 1000000 100000000);
+     *             strings are skipped above 10 million elements
+     */
+    public static void main(String[] args) {
+        final int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000, 1_000_000, 100_000_000};
+        for (int N : sizes) {
+            System.out.printf("N=%d, ns per search%n", N);
+            benchmarkInts(N);
+            benchmarkLongs(N);
+            if (N <= 10_000_000) {
+                benchmarkStrings(N);
+            }
+        }
+    }
+
+    // each search loop is in its own method so that it is compiled on its
+    // own rather than as part of a long-running benchmark loop
+    private static void benchmarkInts(int N) {
+        final Random random = new Random(42);
+        // even values, so half the targets are missing
+        final int[] sorted = new int[N];
+        for (int i = 0; i < N; i++) {
+            sorted[i] = 2 * i;
+        }
+        final int[] targets = new int[2_000_000];
+        for (int q = 0; q < targets.length; q++) {
+            targets[q] = random.nextInt(2 * N);
+        }
+        final OfInt eytzinger = new OfInt(sorted);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            final long expected = binarySearchAll(sorted, targets);
+            final long binaryTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final long found = searchAll(eytzinger, targets);
+            final long layoutTime = System.nanoTime() - start;
+            if (expected != found) {
+                throw new IllegalStateException("int search results differ");
+            }
+            if (round == 2) {
+                System.out.printf("  int[]    Arrays.binarySearch %7.1f   Eytzinger %7.1f%n",
+                        (double) binaryTime / targets.length, (double) layoutTime / targets.length);
+            }
+        }
+    }
+
+    private static long binarySearchAll(int[] sorted, int[] targets) {
+        long sum = 0;
+        for (int target : targets) {
+            sum += Math.max(-1, Arrays.binarySearch(sorted, target));
+        }
+        return sum;
+    }
+
+    private static long searchAll(OfInt eytzinger, int[] targets) {
+        long sum = 0;
+        for (int target : targets) {
+            sum += eytzinger.search(target);
+        }
+        return sum;
+    }
+
+    private static void benchmarkLongs(int N) {
+        final Random random = new Random(42);
+        // spread over the whole range, so there are no duplicates whose index
+        // could differ between the searches
+        final long[] sorted = new long[N];
+        for (int i = 0; i < N; i++) {
+            sorted[i] = random.nextLong();
+        }
+        Arrays.sort(sorted);
+        final long[] targets = new long[2_000_000];
+        for (int q = 0; q < targets.length; q++) {
+            targets[q] = random.nextBoolean() ? sorted[random.nextInt(N)] : random.nextLong();
+        }
+        final OfLong eytzinger = new OfLong(sorted);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            final long expected = binarySearchAll(sorted, targets);
+            final long binaryTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final long found = searchAll(eytzinger, targets);
+            final long layoutTime = System.nanoTime() - start;
+            if (expected != found) {
+                throw new IllegalStateException("long search results differ");
+            }
+            if (round == 2) {
+                System.out.printf("  long[]   Arrays.binarySearch %7.1f   Eytzinger %7.1f%n",
+                        (double) binaryTime / targets.length, (double) layoutTime / targets.length);
+            }
+        }
+    }
+
+    private static long binarySearchAll(long[] sorted, long[] targets) {
+        long sum = 0;
+        for (long target : targets) {
+            sum += Math.max(-1, Arrays.binarySearch(sorted, target));
+        }
+        return sum;
+    }
+
+    private static long searchAll(OfLong eytzinger, long[] targets) {
+        long sum = 0;
+        for (long target : targets) {
+            sum += eytzinger.search(target);
+        }
+        return sum;
+    }
+
+    private static void benchmarkStrings(int N) {
+        final Random random = new Random(42);
+        final String chars = "abcdefghijklmnopqrstuvwxyz";
+        final String[] sorted = Generator.randomStrings(N, 10, chars);
+        Arrays.sort(sorted);
+        final String[] targets = new String[500_000];
+        for (int q = 0; q < targets.length; q++) {
+            targets[q] = random.nextBoolean() ? sorted[random.nextInt(N)] : Generator.randomString(10, chars);
+        }
+        final OfString eytzinger = new OfString(sorted);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            final long iterative = iterationAll(sorted, targets);
+            final long iterationTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final long recursive = recursionAll(sorted, targets);
+            final long recursionTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final long found = searchAll(eytzinger, targets);
+            final long layoutTime = System.nanoTime() - start;
+            // duplicate strings may be found at different indices
+            if (iterative != recursive || iterative != found) {
+                throw new IllegalStateException("string search results differ");
+            }
+            if (round == 2) {
+                System.out.printf("  String[] iteration %7.1f   recursion %7.1f   Eytzinger %7.1f%n",
+                        (double) iterationTime / targets.length, (double) recursionTime / targets.length,
+                        (double) layoutTime / targets.length);
+            }
+        }
+    }
+
+    // the number of targets found
+    private static long iterationAll(String[] sorted, String[] targets) {
+        long found = 0;
+        for (String target : targets) {
+            found += BinarySearchIteration.search(sorted, target) >= 0 ? 1 : 0;
+        }
+        return found;
+    }
+
+    private static long recursionAll(String[] sorted, String[] targets) {
+        long found = 0;
+        for (String target : targets) {
+            found += BinarySearchRecursion.search(sorted, target) >= 0 ? 1 : 0;
+        }
+        return found;
+    }
+
+    private static long searchAll(OfString eytzinger, String[] targets) {
+        long found = 0;
+        for (String target : targets) {
+            found += eytzinger.search(target) >= 0 ? 1 : 0;
+        }
+        return found;
+    }
+}
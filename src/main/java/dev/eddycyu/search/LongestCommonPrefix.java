@@ -4,13 +4,40 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Longest Common Prefix
+ * <p>
+ * The <code>lcp</code> methods return the prefix itself. The
+ * <code>lcpLength</code> methods only return its length and never allocate:
+ * <ul>
+ * <li>Strings are compared one char at a time, since String has no public
+ * bulk mismatch; the prefix is never copied.</li>
+ * <li><code>char[]</code> and <code>byte[]</code> arrays are compared with
+ * <code>Arrays.mismatch</code>, which the JIT compiles to vector
+ * instructions that compare 8 or more bytes at a time.</li>
+ * <li>The prefix shared by an array of strings is the minimum, over all the
+ * strings, of the prefix each shares with the first string, and no string
+ * is compared beyond the smallest length found so far. That minimum is a
+ * reduction, so the array can be split in halves recursively and the halves
+ * reduced in parallel on a <code>ForkJoinPool</code>.</li>
+ * </ul>
+ * <p>
+ * https://en.wikipedia.org/wiki/Longest_common_prefix
+ * <p>
+ * Time Complexity: O(L) for two strings, O(N * L) for N strings, where L is
+ * the length of the longest common prefix
+ * Space Complexity: O(1) for lcpLength, O(L) for lcp
  */
 public class LongestCommonPrefix {
 
+    // arrays up to this size are reduced by a single thread
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 12;
+
     private LongestCommonPrefix() {
     }
 
@@ -54,7 +81,121 @@ public class LongestCommonPrefix {
         }
     }
 
+    /**
+     * @param a first string
+     * @param b second string
+     * @return length of the longest prefix of both strings
+     */
+    public static int lcpLength(String a, String b) {
+        return lcpLength(a, b, Math.min(a.length(), b.length()));
+    }
+
+    // length of the common prefix, comparing at most limit chars
+    private static int lcpLength(String a, String b, int limit) {
+        for (int i = 0; i < limit; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @param a first array
+     * @param b second array
+     * @return length of the longest prefix of both arrays
+     */
+    public static int lcpLength(char[] a, char[] b) {
+        final int i = Arrays.mismatch(a, b);
+        return i < 0 ? a.length : i;
+    }
+
+    /**
+     * @param a first array
+     * @param b second array
+     * @return length of the longest prefix of both arrays
+     */
+    public static int lcpLength(byte[] a, byte[] b) {
+        final int i = Arrays.mismatch(a, b);
+        return i < 0 ? a.length : i;
+    }
+
+    /**
+     * @param data array of strings
+     * @return length of the longest prefix of ALL strings; 0 if data is empty
+     */
+    public static int lcpLength(String[] data) {
+        if (data.length == 0) {
+            return 0;
+        }
+        return lcpLength(data, data[0], 0, data.length, data[0].length());
+    }
+
+    /**
+     * Same as {@link #lcpLength(String[])}, with the strings split among the
+     * threads of pool.
+     *
+     * @param data array of strings
+     * @param pool pool to run on
+     * @return length of the longest prefix of ALL strings; 0 if data is empty
+     */
+    public static int lcpLength(String[] data, ForkJoinPool pool) {
+        if (data.length == 0) {
+            return 0;
+        }
+        return pool.invoke(new LcpTask(data, 0, data.length));
+    }
+
+    // prefix shared by first and data[lo, hi), which is at most bound long
+    private static int lcpLength(String[] data, String first, int lo, int hi, int bound) {
+        for (int i = lo; i < hi && bound > 0; i++) {
+            bound = lcpLength(first, data[i], Math.min(bound, data[i].length()));
+        }
+        return bound;
+    }
+
+    /**
+     * Length of the prefix shared by data[0] and data[lo, hi).
+     */
+    private static class LcpTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final String[] data;
+        private final int lo;
+        private final int hi;
+
+        LcpTask(String[] data, int lo, int hi) {
+            super();
+            this.data = data;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                return lcpLength(data, data[0], lo, hi, data[0].length());
+            }
+            final int mid = (lo + hi) >>> 1;
+            final LcpTask right = new LcpTask(data, mid, hi);
+            right.fork();
+            final int left = new LcpTask(data, lo, mid).compute();
+            return Math.min(left, right.join());
+        }
+    }
+
+    /**
+     * Find the longest common prefix of lines from standard input, or
+     * benchmark lcp against lcpLength when a size is given.
+     *
+     * @param args [0] number of strings to benchmark with
+     *             [1] length of each string (default 1000)
+     */
     public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            benchmark(Integer.parseInt(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 1000);
+            return;
+        }
+
         try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
             // read data from standard input
             String line;
@@ -79,4 +220,62 @@ public class LongestCommonPrefix {
             System.out.println(lcp(strings));
         }
     }
+
+    private static void benchmark(int N, int L) {
+        // N strings of length L that share all but their last character
+        final char[] chars = new char[L];
+        Arrays.fill(chars, 'a');
+        final String[] data = new String[N];
+        for (int i = 0; i < N; i++) {
+            chars[L - 1] = (char) ('a' + i % 26);
+            data[i] = new String(chars);
+        }
+        final char[] a = data[0].toCharArray();
+        final char[] b = data[1].toCharArray();
+        final int expected = L - 1;
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        System.out.printf("N=%d L=%d threads=%d, best of 5 runs%n", N, L, pool.getParallelism());
+        final String[] names = {"lcp(String[])", "lcpLength(String[])", "lcpLength(String[], pool)",
+                "lcp(String, String)", "lcpLength(String, String)", "lcpLength(char[], char[])"};
+        // pairs are compared N times so the times are comparable
+        for (int s = 0; s < names.length; s++) {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                final long start = System.nanoTime();
+                long length = 0;
+                switch (s) {
+                    case 0:
+                        length = lcp(data).length();
+                        break;
+                    case 1:
+                        length = lcpLength(data);
+                        break;
+                    case 2:
+                        length = lcpLength(data, pool);
+                        break;
+                    case 3:
+                        for (int i = 0; i < N; i++) {
+                            length = lcp(data[0], data[1]).length();
+                        }
+                        break;
+                    case 4:
+                        for (int i = 0; i < N; i++) {
+                            length = lcpLength(data[0], data[1]);
+                        }
+                        break;
+                    default:
+                        for (int i = 0; i < N; i++) {
+                            length = lcpLength(a, b);
+                        }
+                        break;
+                }
+                best = Math.min(best, System.nanoTime() - start);
+                if (length != expected) {
+                    throw new IllegalStateException(names[s] + " returned " + length);
+                }
+            }
+            System.out.printf("  %-28s %8d us%n", names[s], best / 1_000);
+        }
+    }
 }
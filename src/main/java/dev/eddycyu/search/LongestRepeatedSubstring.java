@@ -1,18 +1,25 @@
 package dev.eddycyu.search;
 
-import dev.eddycyu.sort.MergeSort;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 
 /**
  * Longest Repeated Substring
  * <p>
  * Given an input string, find the longest substring in the string that occurs at least twice.
  * <p>
- * This solution use a suffix array to solve the problem.
+ * This solution use a suffix array to solve the problem. A substring that
+ * occurs twice is a common prefix of two suffixes, and the longest common
+ * prefix of any two suffixes is found between two suffixes that are adjacent
+ * in sorted order, so the answer is the largest entry of the LCP array of
+ * {@link SuffixArray}. No substring is created except the one returned.
  * <p>
  * https://en.wikipedia.org/wiki/Longest_repeated_substring_problem
  * https://en.wikipedia.org/wiki/Suffix_array
  * <p>
- * Time Complexity: O(n log n)
+ * Time Complexity: O(n)
+ * Space Complexity: O(n)
  */
 public class LongestRepeatedSubstring {
 
@@ -20,29 +27,36 @@ public class LongestRepeatedSubstring {
     }
 
     public static String lrs(String input) {
-        // form suffix array
-        final int N = input.length();
-        final String[] suffixes = new String[N];
-        for (int i = 0; i < N; i++) {
-            suffixes[i] = input.substring(i, N);
-        }
-
-        // sort the suffix array in ascending order
-        MergeSort.sort(suffixes);
+        final SuffixArray suffixArray = new SuffixArray(input);
 
-        // find LCP (longest common prefix) among adjacent entries
-        String lrs = "";
-        for (int i = 0; i < N - 1; i++) {
-            final String lcp = LongestCommonPrefix.lcp(suffixes[i], suffixes[i + 1]);
-            if (lcp.length() > lrs.length()) {
-                lrs = lcp;
+        // find the longest LCP (longest common prefix) among adjacent suffixes
+        int length = 0;
+        int start = 0;
+        for (int i = 1; i < suffixArray.length(); i++) {
+            if (suffixArray.lcp(i) > length) {
+                length = suffixArray.lcp(i);
+                start = suffixArray.index(i);
             }
         }
-        return lrs;
+        return input.substring(start, start + length);
     }
 
-    public static void main(String[] args) {
-        final String input = args[0];
-        System.out.println(lrs(input));
+    /**
+     * @param args [0] input string; all of standard input if not given
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            System.out.println(lrs(args[0]));
+            return;
+        }
+        try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
+            final StringBuilder input = new StringBuilder();
+            final char[] buffer = new char[1 << 16];
+            int n;
+            while ((n = bf.read(buffer)) != -1) {
+                input.append(buffer, 0, n);
+            }
+            System.out.println(lrs(input.toString()));
+        }
     }
 }
@@ -0,0 +1,289 @@
+package dev.eddycyu.search;
+
+import java.util.Arrays;
+
+/**
+ * Suffix array with longest common prefix (LCP) array.
+ * <p>
+ * Given a text, sort the start positions of all its suffixes in ascending
+ * order of the suffixes, and compute the length of the longest common prefix
+ * of each pair of adjacent suffixes in that order. No suffix is ever copied:
+ * the text is held as an <code>int[]</code> and suffixes are referred to by
+ * their start position.
+ * <ul>
+ * <li>The suffix array is built with SA-IS (suffix array by induced sorting)
+ * by Nong, Zhang and Chan. Each position is classified as S-type (its suffix
+ * is smaller than the next one) or L-type, and the leftmost S-type positions
+ * of each S-run (LMS positions) split the text into LMS substrings. The LMS
+ * substrings are sorted by inducing from their buckets, named by rank, and
+ * if two names are equal the reduced text of names (at most half as long) is
+ * sorted recursively. The sorted LMS suffixes then induce the order of all
+ * the other suffixes in two scans.</li>
+ * <li>The LCP array is built with Kasai's algorithm: going through the
+ * suffixes in text order, the LCP of suffix i + 1 with its predecessor is at
+ * least the LCP of suffix i with its predecessor minus one, so the matched
+ * length only drops by one per step and the total work is linear.</li>
+ * </ul>
+ * <p>
+ * https://en.wikipedia.org/wiki/Suffix_array
+ * https://en.wikipedia.org/wiki/LCP_array
+ * https://algs4.cs.princeton.edu/63suffix/SuffixArrayX.java.html
+ * <p>
+ * Time Complexity: O(n + K) to build, where K is the alphabet size
+ * Space Complexity: O(n + K)
+ *
+ * @see LongestRepeatedSubstring
+ */
+public class SuffixArray {
+
+    private final int[] text;
+    private final int[] sa;
+    private final int[] lcp;
+
+    /**
+     * @param text text whose suffixes are sorted by char value
+     */
+    public SuffixArray(String text) {
+        this(codes(text), Character.MAX_VALUE + 1);
+    }
+
+    /**
+     * @param text         text whose suffixes are sorted; not copied, so it
+     *                     must not be changed afterwards
+     * @param alphabetSize every value in text is in [0, alphabetSize)
+     */
+    public SuffixArray(int[] text, int alphabetSize) {
+        for (int c : text) {
+            if (c < 0 || c >= alphabetSize) {
+                throw new IllegalArgumentException("text value " + c + " is not in [0, " + alphabetSize + ")");
+            }
+        }
+        this.text = text;
+        this.sa = sais(text, alphabetSize - 1);
+        this.lcp = kasai(text, sa);
+    }
+
+    private static int[] codes(String text) {
+        final int[] codes = new int[text.length()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = text.charAt(i);
+        }
+        return codes;
+    }
+
+    /**
+     * @return length of the text
+     */
+    public int length() {
+        return sa.length;
+    }
+
+    /**
+     * @param i rank of a suffix, in [0, length)
+     * @return start position of the i-th smallest suffix
+     */
+    public int index(int i) {
+        return sa[i];
+    }
+
+    /**
+     * @param i rank of a suffix, in [0, length)
+     * @return length of the longest common prefix of the (i-1)-th and i-th
+     * smallest suffixes; 0 if i is 0
+     */
+    public int lcp(int i) {
+        return lcp[i];
+    }
+
+    // package-private views for the classes built on top of the arrays;
+    // callers must not change them
+    int[] text() {
+        return text;
+    }
+
+    int[] indices() {
+        return sa;
+    }
+
+    int[] lcps() {
+        return lcp;
+    }
+
+    /**
+     * SA-IS over s, whose values are in [0, upper]. The text is treated as
+     * if it ended with a sentinel smaller than every value, so the last
+     * position is L-type.
+     */
+    private static int[] sais(int[] s, int upper) {
+        final int n = s.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        if (n == 1) {
+            return new int[]{0};
+        }
+        if (n == 2) {
+            return s[0] < s[1] ? new int[]{0, 1} : new int[]{1, 0};
+        }
+
+        // classify positions from the right: S-type (true) or L-type (false)
+        final boolean[] sType = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = s[i] == s[i + 1] ? sType[i + 1] : s[i] < s[i + 1];
+        }
+
+        // bucket c holds the L-type suffixes starting with c from startL[c],
+        // followed by the S-type ones from startS[c]
+        final int[] startL = new int[upper + 1];
+        final int[] startS = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!sType[i]) {
+                startS[s[i]]++;
+            } else if (s[i] < upper) {
+                startL[s[i] + 1]++;
+            }
+        }
+        for (int c = 0; c <= upper; c++) {
+            startS[c] += startL[c];
+            if (c < upper) {
+                startL[c + 1] += startS[c];
+            }
+        }
+
+        // LMS positions in text order, and the number of each LMS position
+        final int[] lmsNumber = new int[n];
+        Arrays.fill(lmsNumber, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++) {
+            if (!sType[i - 1] && sType[i]) {
+                lmsNumber[i] = m++;
+            }
+        }
+        final int[] lms = new int[m];
+        for (int i = 1; i < n; i++) {
+            if (lmsNumber[i] != -1) {
+                lms[lmsNumber[i]] = i;
+            }
+        }
+
+        final int[] sa = new int[n];
+        final int[] bucket = new int[upper + 1];
+        induce(s, sType, startL, startS, bucket, lms, sa);
+        if (m == 0) {
+            return sa;
+        }
+
+        // the LMS positions are now ordered by their LMS substrings; name
+        // each substring by its rank among the distinct ones
+        final int[] sortedLms = new int[m];
+        int k = 0;
+        for (int v : sa) {
+            if (lmsNumber[v] != -1) {
+                sortedLms[k++] = v;
+            }
+        }
+        final int[] reduced = new int[m];
+        int name = 0;
+        reduced[lmsNumber[sortedLms[0]]] = 0;
+        for (int i = 1; i < m; i++) {
+            int l = sortedLms[i - 1];
+            int r = sortedLms[i];
+            final int endL = lmsNumber[l] + 1 < m ? lms[lmsNumber[l] + 1] : n;
+            final int endR = lmsNumber[r] + 1 < m ? lms[lmsNumber[r] + 1] : n;
+            boolean same = endL - l == endR - r;
+            if (same) {
+                while (l < endL && s[l] == s[r]) {
+                    l++;
+                    r++;
+                }
+                same = l != n && s[l] == s[r];
+            }
+            if (!same) {
+                name++;
+            }
+            reduced[lmsNumber[sortedLms[i]]] = name;
+        }
+
+        // sort the LMS suffixes through the reduced text, then induce again
+        final int[] reducedSa = sais(reduced, name);
+        for (int i = 0; i < m; i++) {
+            sortedLms[i] = lms[reducedSa[i]];
+        }
+        induce(s, sType, startL, startS, bucket, sortedLms, sa);
+        return sa;
+    }
+
+    // place the LMS suffixes in the given order at the starts of the S parts
+    // of their buckets, then induce the L-type suffixes left to right and
+    // the S-type suffixes right to left
+    private static void induce(int[] s, boolean[] sType, int[] startL, int[] startS, int[] bucket,
+                               int[] lms, int[] sa) {
+        final int n = s.length;
+        Arrays.fill(sa, -1);
+        System.arraycopy(startS, 0, bucket, 0, bucket.length);
+        for (int v : lms) {
+            sa[bucket[s[v]]++] = v;
+        }
+        System.arraycopy(startL, 0, bucket, 0, bucket.length);
+        // the last suffix is preceded only by the sentinel, so it comes first
+        sa[bucket[s[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            final int v = sa[i];
+            if (v >= 1 && !sType[v - 1]) {
+                sa[bucket[s[v - 1]]++] = v - 1;
+            }
+        }
+        // the end of bucket c is the start of bucket c + 1
+        for (int c = 0; c + 1 < bucket.length; c++) {
+            bucket[c] = startL[c + 1];
+        }
+        bucket[bucket.length - 1] = n;
+        for (int i = n - 1; i >= 0; i--) {
+            final int v = sa[i];
+            if (v >= 1 && sType[v - 1]) {
+                sa[--bucket[s[v - 1]]] = v - 1;
+            }
+        }
+    }
+
+    // Kasai's algorithm: lcp[i] is the LCP of suffixes sa[i - 1] and sa[i]
+    private static int[] kasai(int[] text, int[] sa) {
+        final int n = text.length;
+        final int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[sa[i]] = i;
+        }
+        final int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            if (rank[i] == 0) {
+                h = 0;
+                continue;
+            }
+            final int j = sa[rank[i] - 1];
+            while (i + h < n && j + h < n && text[i + h] == text[j + h]) {
+                h++;
+            }
+            lcp[rank[i]] = h;
+            if (h > 0) {
+                h--;
+            }
+        }
+        return lcp;
+    }
+
+    /**
+     * Print the suffix array and LCP array of a string.
+     *
+     * @param args [0] input string
+     */
+    public static void main(String[] args) {
+        final String input = args[0];
+        final SuffixArray suffixArray = new SuffixArray(input);
+        System.out.println("  i index lcp suffix");
+        for (int i = 0; i < suffixArray.length(); i++) {
+            final int index = suffixArray.index(i);
+            System.out.printf("%3d %5d %3d %s%n", i, index, suffixArray.lcp(i), input.substring(index));
+        }
+    }
+}
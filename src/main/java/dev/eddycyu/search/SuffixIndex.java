@@ -0,0 +1,561 @@
+package dev.eddycyu.search;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Full-text substring index over a {@link SuffixArray}.
+ * <p>
+ * All the suffixes that start with a pattern are adjacent in the suffix
+ * array, so {@link #count(String)} and {@link #locate(String)} find the
+ * first and last of them with two binary searches. Each step of a search
+ * compares the pattern with a suffix, but not from the first character: the
+ * suffix in the middle of the search range shares at least
+ * min(lcp(low, pattern), lcp(high, pattern)) characters with the pattern, so
+ * those are skipped (the "mlr" acceleration of Manber and Myers).
+ * <p>
+ * The LCP array is used for two more queries:
+ * <ul>
+ * <li>{@link #topRepeats(int, int)}: every LCP interval (a maximal range of
+ * the suffix array whose suffixes share a prefix longer than the LCP at its
+ * boundaries) is a repeated substring that occurs once per suffix in the
+ * range. The intervals are enumerated bottom-up with a stack in one pass
+ * over the LCP array, and the k with the most occurrences are kept in a
+ * heap.</li>
+ * <li>{@link #longestCommonSubstring(String, String)}: in the suffix array of
+ * the two strings joined by a unique separator, the longest common substring
+ * is the largest LCP between adjacent suffixes from different strings.</li>
+ * </ul>
+ * The text, suffix array and LCP array can be written to a file with
+ * {@link #write(Path)} and memory-mapped with {@link #map(Path)}, which
+ * queries the file in place like {@link dev.eddycyu.graph.MappedGraph}: a
+ * mapped index opens in milliseconds, whatever its size, and pages are read
+ * as queries touch them. The text is stored as 16-bit chars, so the file
+ * takes 10 bytes per char of text.
+ * <p>
+ * Positions and ranks are ints, and {@link #count(String)} returns the
+ * length plus one for the empty pattern, so the text is limited to
+ * Integer.MAX_VALUE - 1 chars. The index is built on the heap, which needs
+ * the text and several int arrays of the same length in memory; only a
+ * written index is queried without loading it onto the heap.
+ * <p>
+ * https://en.wikipedia.org/wiki/Suffix_array#Applications
+ * https://en.wikipedia.org/wiki/LCP_array#Applications
+ * https://algs4.cs.princeton.edu/63suffix/
+ * <p>
+ * Time Complexity: O(m log n) for count and locate (plus O(occ log occ) to
+ * sort the positions for locate), where m is the length of the pattern;
+ * O(n log k) for the top k repeats
+ * Space Complexity: O(n)
+ */
+public class SuffixIndex {
+
+    private static final int MAGIC = 0x58465553; // "SUFX"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 1;
+    // largest array HotSpot allocates; the suffix array of a text is built
+    // on the heap, so this caps the text that main can index
+    private static final int MAX_HEAP_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int READ_CHUNK = 1 << 24;
+
+    // a mapping is limited to 2 GB, so each array is split into segments
+    private static final int SEGMENT_SHIFT = 28;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final int length;
+    private final CharBuffer[] text;
+    private final IntBuffer[] sa;
+    private final IntBuffer[] lcp;
+
+    /**
+     * @param text text to index
+     */
+    public SuffixIndex(String text) {
+        this(new SuffixArray(text));
+    }
+
+    /**
+     * @param suffixArray suffix array of the text to index; every value of
+     *                    the text must be a char, i.e. in [0, 65535]
+     */
+    public SuffixIndex(SuffixArray suffixArray) {
+        this(suffixArray.length(), wrap(chars(suffixArray.text())), wrap(suffixArray.indices()),
+                wrap(suffixArray.lcps()));
+    }
+
+    private SuffixIndex(int length, CharBuffer[] text, IntBuffer[] sa, IntBuffer[] lcp) {
+        this.length = length;
+        this.text = text;
+        this.sa = sa;
+        this.lcp = lcp;
+    }
+
+    private static char[] chars(int[] text) {
+        final char[] chars = new char[text.length];
+        for (int i = 0; i < text.length; i++) {
+            if (text[i] < 0 || text[i] > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("text value " + text[i] + " at " + i + " is not a char");
+            }
+            chars[i] = (char) text[i];
+        }
+        return chars;
+    }
+
+    private static int segments(int count) {
+        return Math.max(1, (count + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+    }
+
+    // heap arrays as segments, so heap and mapped indexes share the code
+    private static CharBuffer[] wrap(char[] array) {
+        final CharBuffer[] buffers = new CharBuffer[segments(array.length)];
+        for (int s = 0; s < buffers.length; s++) {
+            final int first = s << SEGMENT_SHIFT;
+            buffers[s] = CharBuffer.wrap(array, first, Math.min(SEGMENT_SIZE, array.length - first)).slice();
+        }
+        return buffers;
+    }
+
+    private static IntBuffer[] wrap(int[] array) {
+        final IntBuffer[] buffers = new IntBuffer[segments(array.length)];
+        for (int s = 0; s < buffers.length; s++) {
+            final int first = s << SEGMENT_SHIFT;
+            buffers[s] = IntBuffer.wrap(array, first, Math.min(SEGMENT_SIZE, array.length - first)).slice();
+        }
+        return buffers;
+    }
+
+    private static char get(CharBuffer[] segments, int i) {
+        return segments[i >>> SEGMENT_SHIFT].get(i & SEGMENT_MASK);
+    }
+
+    private static int get(IntBuffer[] segments, int i) {
+        return segments[i >>> SEGMENT_SHIFT].get(i & SEGMENT_MASK);
+    }
+
+    /**
+     * @return length of the indexed text
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param pattern substring to look for
+     * @return number of (possibly overlapping) occurrences of pattern; the
+     * length of the text plus one for the empty pattern, like
+     * <code>String.indexOf</code> matches at every position
+     */
+    public int count(String pattern) {
+        if (pattern.isEmpty()) {
+            return length + 1;
+        }
+        return bound(pattern, true) - bound(pattern, false);
+    }
+
+    /**
+     * @param pattern substring to look for; not empty
+     * @return start positions of all occurrences of pattern in ascending order
+     */
+    public int[] locate(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("pattern must not be empty");
+        }
+        final int lo = bound(pattern, false);
+        final int hi = bound(pattern, true);
+        final int[] positions = new int[hi - lo];
+        for (int i = lo; i < hi; i++) {
+            positions[i - lo] = get(sa, i);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Binary search for the first rank whose suffix is not less than pattern
+     * (upper is false), or whose suffix is greater than every string that
+     * starts with pattern (upper is true).
+     */
+    private int bound(String pattern, boolean upper) {
+        final int m = pattern.length();
+        // suffix(lo) comes before the bound and suffix(hi) does not; the
+        // ranks -1 and length stand for the smallest and largest strings
+        int lo = -1;
+        int hi = length;
+        int lcpLo = 0;
+        int lcpHi = 0;
+        while (hi - lo > 1) {
+            final int mid = (lo + hi) >>> 1;
+            final int start = get(sa, mid);
+            // suffix(mid) shares at least this much with pattern because it
+            // lies between suffix(lo) and suffix(hi)
+            int k = Math.min(lcpLo, lcpHi);
+            while (k < m && start + k < length && get(text, start + k) == pattern.charAt(k)) {
+                k++;
+            }
+            final boolean before;
+            if (k == m) {
+                // suffix(mid) starts with pattern
+                before = upper;
+            } else if (start + k == length) {
+                // suffix(mid) is a proper prefix of pattern
+                before = true;
+            } else {
+                before = get(text, start + k) < pattern.charAt(k);
+            }
+            if (before) {
+                lo = mid;
+                lcpLo = k;
+            } else {
+                hi = mid;
+                lcpHi = k;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * A substring that occurs more than once.
+     */
+    public static class Repeat {
+        private final String text;
+        private final int start;
+        private final int count;
+
+        Repeat(String text, int start, int count) {
+            super();
+            this.text = text;
+            this.start = start;
+            this.count = count;
+        }
+
+        /**
+         * @return the repeated substring
+         */
+        public String text() {
+            return text;
+        }
+
+        /**
+         * @return start position of one of its occurrences
+         */
+        public int start() {
+            return start;
+        }
+
+        /**
+         * @return number of occurrences
+         */
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return count + " x \"" + text + "\"";
+        }
+    }
+
+    /**
+     * Find the k repeated substrings of at least minLength characters with
+     * the most occurrences, ties going to the longer substring. Each one is
+     * as long as it can be without occurring fewer times, e.g. if "abc" is
+     * always followed by "d", then "abcd" is listed and "abc" is not.
+     *
+     * @param k         maximum number of substrings to return
+     * @param minLength minimum length of a substring; at least 1
+     * @return up to k repeated substrings, most frequent first
+     */
+    public List<Repeat> topRepeats(int k, int minLength) {
+        if (minLength < 1) {
+            throw new IllegalArgumentException("minLength must be at least 1");
+        }
+        // candidates as {count, length, rank}; the heap holds the best k
+        // with the worst at the head
+        final Comparator<int[]> order = Comparator.<int[]>comparingInt(c -> c[0]).thenComparingInt(c -> c[1]);
+        final PriorityQueue<int[]> best = new PriorityQueue<>(order);
+
+        // stack of open LCP intervals as (lcp, left boundary)
+        final int[] stackLcp = new int[length + 1];
+        final int[] stackLeft = new int[length + 1];
+        int top = 0;
+        stackLcp[0] = 0;
+        stackLeft[0] = 0;
+        for (int i = 1; i <= length; i++) {
+            final int current = i < length ? get(lcp, i) : 0;
+            int left = i - 1;
+            // close every interval whose prefix the suffix at rank i does not share
+            while (current < stackLcp[top]) {
+                final int intervalLcp = stackLcp[top];
+                left = stackLeft[top];
+                top--;
+                if (intervalLcp >= minLength && k > 0) {
+                    final int[] candidate = {i - left, intervalLcp, left};
+                    if (best.size() < k) {
+                        best.add(candidate);
+                    } else if (order.compare(candidate, best.peek()) > 0) {
+                        best.poll();
+                        best.add(candidate);
+                    }
+                }
+            }
+            if (current > stackLcp[top]) {
+                top++;
+                stackLcp[top] = current;
+                stackLeft[top] = left;
+            }
+        }
+
+        final List<Repeat> repeats = new ArrayList<>();
+        while (!best.isEmpty()) {
+            final int[] candidate = best.poll();
+            final int start = get(sa, candidate[2]);
+            repeats.add(new Repeat(substring(start, candidate[1]), start, candidate[0]));
+        }
+        // the heap gives the worst first
+        Collections.reverse(repeats);
+        return repeats;
+    }
+
+    /**
+     * @param start start position in the text
+     * @param count number of characters
+     * @return text[start, start + count) as a string
+     */
+    public String substring(int start, int count) {
+        final char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = get(text, start + i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Find the longest substring that occurs in both a and b.
+     *
+     * @param a first string
+     * @param b second string
+     * @return longest common substring; the first in sorted order if there
+     * are several
+     */
+    public static String longestCommonSubstring(String a, String b) {
+        // shift the chars up by one so that 0 is a separator that matches
+        // nothing and no common prefix can run across it
+        final int[] joined = new int[a.length() + 1 + b.length()];
+        for (int i = 0; i < a.length(); i++) {
+            joined[i] = a.charAt(i) + 1;
+        }
+        joined[a.length()] = 0;
+        for (int i = 0; i < b.length(); i++) {
+            joined[a.length() + 1 + i] = b.charAt(i) + 1;
+        }
+        final SuffixArray suffixArray = new SuffixArray(joined, Character.MAX_VALUE + 2);
+
+        int length = 0;
+        int start = 0;
+        for (int i = 1; i < suffixArray.length(); i++) {
+            final boolean previousInA = suffixArray.index(i - 1) < a.length();
+            final boolean currentInA = suffixArray.index(i) < a.length();
+            if (previousInA != currentInA && suffixArray.lcp(i) > length) {
+                length = suffixArray.lcp(i);
+                start = currentInA ? suffixArray.index(i) : suffixArray.index(i - 1);
+            }
+        }
+        return a.substring(start, start + length);
+    }
+
+    /**
+     * Write the index to a file. The layout is a 32 byte header (magic,
+     * version, length, reserved) followed by the text as little-endian
+     * chars, padded to a multiple of 4 bytes, and then the suffix array and
+     * the LCP array as little-endian ints. The file is flushed to the
+     * storage device before this returns.
+     *
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(length);
+            header.force();
+
+            final MappedByteBuffer[] textTarget = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_BYTES,
+                    length, Character.BYTES);
+            for (int s = 0; s < textTarget.length; s++) {
+                final CharBuffer source = text[s].duplicate();
+                source.rewind();
+                textTarget[s].asCharBuffer().put(source);
+                textTarget[s].force();
+            }
+            long position = HEADER_BYTES + textBytes(length);
+            for (IntBuffer[] array : new IntBuffer[][]{sa, lcp}) {
+                final MappedByteBuffer[] target = map(channel, FileChannel.MapMode.READ_WRITE, position,
+                        length, Integer.BYTES);
+                for (int s = 0; s < target.length; s++) {
+                    final IntBuffer source = array[s].duplicate();
+                    source.rewind();
+                    target[s].asIntBuffer().put(source);
+                    target[s].force();
+                }
+                position += 4L * length;
+            }
+        }
+    }
+
+    /**
+     * Memory-map an index written by {@link #write(Path)}. Nothing is copied
+     * onto the heap.
+     *
+     * @param file file to map
+     * @return index backed by the file
+     * @throws IOException if the file cannot be read or is not in the expected format
+     */
+    public static SuffixIndex map(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a suffix index file: " + file);
+            }
+            final int length = header.getInt();
+            if (length < 0 || length > MAX_LENGTH) {
+                throw new IOException("invalid text length " + length + " in suffix index file: " + file);
+            }
+            final long saStart = HEADER_BYTES + textBytes(length);
+            if (channel.size() < saStart + 8L * length) {
+                throw new IOException("truncated suffix index file: " + file);
+            }
+            final MappedByteBuffer[] text = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                    length, Character.BYTES);
+            final MappedByteBuffer[] sa = map(channel, FileChannel.MapMode.READ_ONLY, saStart,
+                    length, Integer.BYTES);
+            final MappedByteBuffer[] lcp = map(channel, FileChannel.MapMode.READ_ONLY, saStart + 4L * length,
+                    length, Integer.BYTES);
+            // the mappings stay valid after the channel is closed
+            final CharBuffer[] textChars = new CharBuffer[text.length];
+            for (int s = 0; s < text.length; s++) {
+                textChars[s] = text[s].asCharBuffer();
+            }
+            return new SuffixIndex(length, textChars, ints(sa), ints(lcp));
+        }
+    }
+
+    // bytes of the text section, padded so that the ints after it are aligned
+    private static long textBytes(int length) {
+        return (2L * length + 3) & ~3L;
+    }
+
+    // map count elements of elementBytes each, starting at byte position
+    // start, in segments
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long start, int count,
+                                          int elementBytes) throws IOException {
+        final MappedByteBuffer[] buffers = new MappedByteBuffer[segments(count)];
+        for (int s = 0; s < buffers.length; s++) {
+            final long first = (long) s << SEGMENT_SHIFT;
+            final long elements = Math.min(SEGMENT_SIZE, count - first);
+            buffers[s] = channel.map(mode, start + elementBytes * first, elementBytes * elements);
+            buffers[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffers;
+    }
+
+    private static IntBuffer[] ints(MappedByteBuffer[] segments) {
+        final IntBuffer[] buffers = new IntBuffer[segments.length];
+        for (int s = 0; s < segments.length; s++) {
+            buffers[s] = segments[s].asIntBuffer();
+        }
+        return buffers;
+    }
+
+    // decode a UTF-8 file straight into the values the suffix array sorts,
+    // without holding the bytes or a String of the whole file
+    private static int[] readText(Path file) throws IOException {
+        // a UTF-8 file has at most as many chars as bytes, so a file that
+        // fits in an array is read without growing the buffer; a larger one
+        // may still decode to fewer chars, so the buffer grows up to the cap
+        final long bytes = Files.size(file);
+        int[] text = new int[(int) (bytes <= MAX_HEAP_LENGTH ? bytes : READ_CHUNK)];
+        int length = 0;
+        try (final Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            final char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                if (read > text.length - length) {
+                    if (read > MAX_HEAP_LENGTH - length) {
+                        throw new IOException(file + " has more than " + MAX_HEAP_LENGTH
+                                + " chars, the most that can be indexed on the heap");
+                    }
+                    final long grown = Math.max((long) text.length * 2, (long) length + read);
+                    text = Arrays.copyOf(text, (int) Math.min(grown, MAX_HEAP_LENGTH));
+                }
+                for (int i = 0; i < read; i++) {
+                    text[length++] = buffer[i];
+                }
+            }
+        }
+        return length == text.length ? text : Arrays.copyOf(text, length);
+    }
+
+    /**
+     * Index a text file and query it, or query an index file written before.
+     *
+     * @param args [0] text file to index, or index file ending in ".sfx"
+     *             [1] file to write the index to, ending in ".sfx" (optional)
+     *             [2...] patterns to count and locate
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            final SuffixIndex index = new SuffixIndex("it was the best of times it was the worst of times");
+            System.out.println("count(\"it was\") = " + index.count("it was"));
+            System.out.println("locate(\"times\") = " + Arrays.toString(index.locate("times")));
+            System.out.println("top repeats = " + index.topRepeats(3, 3));
+            System.out.println("longest common substring = \""
+                    + longestCommonSubstring("the best of times", "the worst of times") + "\"");
+            return;
+        }
+
+        long start = System.nanoTime();
+        final SuffixIndex index;
+        int next = 1;
+        if (args[0].endsWith(".sfx")) {
+            index = map(Paths.get(args[0]));
+            System.out.printf("mapped %d chars in %d ms%n", index.length(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            index = new SuffixIndex(new SuffixArray(readText(Paths.get(args[0])), Character.MAX_VALUE + 1));
+            System.out.printf("indexed %d chars in %d ms%n", index.length(), (System.nanoTime() - start) / 1_000_000);
+            if (args.length > 1 && args[1].endsWith(".sfx")) {
+                start = System.nanoTime();
+                index.write(Paths.get(args[1]));
+                System.out.printf("wrote %s in %d ms%n", args[1], (System.nanoTime() - start) / 1_000_000);
+                next = 2;
+            }
+        }
+        for (int i = next; i < args.length; i++) {
+            start = System.nanoTime();
+            final int[] positions = index.locate(args[i]);
+            System.out.printf("\"%s\": %d occurrences, first at %s (%d us)%n", args[i], positions.length,
+                    positions.length > 0 ? positions[0] : "-", (System.nanoTime() - start) / 1_000);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package dev.eddycyu.sort;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * External merge sort.
+ * <p>
+ * Given a text file that may be much larger than the heap, sort its lines in
+ * ascending order using a bounded amount of memory.
+ * <ol>
+ * <li>The input is read in chunks of about {@code chunkBytes} bytes of
+ * strings. Each chunk is sorted with {@link ParallelMergeSort} and written
+ * (spilled) to a temporary run file by a background thread while the next
+ * chunk is being read, so at most two chunks are in memory at once.</li>
+ * <li>The runs are merged {@code fanIn} at a time through a loser tree until
+ * at most {@code fanIn} runs are left, and those are merged into the
+ * output. A loser tree finds the next smallest line with one comparison per
+ * level of the tree (log2 fanIn) against the losers that are already stored
+ * in it, which is half of what a binary heap needs.</li>
+ * </ol>
+ * All files are read and written through large buffers on top of NIO
+ * streams. Lines are compared with <code>String.compareTo</code>, and equal
+ * lines keep their input order.
+ * <p>
+ * https://en.wikipedia.org/wiki/External_sorting
+ * https://en.wikipedia.org/wiki/K-way_merge_algorithm#Tournament_Tree
+ * <p>
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(chunkBytes) memory, O(n) disk
+ */
+public class ExternalMergeSort {
+
+    public static final long DEFAULT_CHUNK_BYTES = 64L << 20;
+    public static final int DEFAULT_FAN_IN = 64;
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    // approximate heap cost of a line: the String and its array header, the
+    // reference in the chunk and in the sort's auxiliary array
+    private static final int LINE_OVERHEAD_BYTES = 64;
+
+    private final long chunkBytes;
+    private final Path tempDirectory;
+    private final int fanIn;
+    private final ForkJoinPool pool;
+
+    public ExternalMergeSort() {
+        this(DEFAULT_CHUNK_BYTES, Paths.get(System.getProperty("java.io.tmpdir")), DEFAULT_FAN_IN);
+    }
+
+    /**
+     * @param chunkBytes    approximate memory used by the lines of one chunk
+     * @param tempDirectory directory for the run files
+     * @param fanIn         maximum number of runs merged at once
+     */
+    public ExternalMergeSort(long chunkBytes, Path tempDirectory, int fanIn) {
+        this(chunkBytes, tempDirectory, fanIn, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param chunkBytes    approximate memory used by the lines of one chunk
+     * @param tempDirectory directory for the run files
+     * @param fanIn         maximum number of runs merged at once
+     * @param pool          pool used to sort each chunk
+     */
+    public ExternalMergeSort(long chunkBytes, Path tempDirectory, int fanIn, ForkJoinPool pool) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes must be positive");
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fanIn must be at least 2");
+        }
+        this.chunkBytes = chunkBytes;
+        this.tempDirectory = tempDirectory;
+        this.fanIn = fanIn;
+        this.pool = pool;
+    }
+
+    /**
+     * Sort the lines of a file into another file.
+     *
+     * @param input  file to sort
+     * @param output file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    public void sort(Path input, Path output) throws IOException {
+        try (final BufferedReader reader = newReader(input);
+             final Writer writer = newWriter(output)) {
+            sort(reader, writer);
+        }
+    }
+
+    /**
+     * Sort the lines read from reader and write them to writer, each followed
+     * by '\n'. Neither stream is closed.
+     *
+     * @param reader lines to sort
+     * @param writer destination of the sorted lines
+     * @throws IOException if the input cannot be read, or a file cannot be written
+     */
+    public void sort(BufferedReader reader, Writer writer) throws IOException {
+        final Path directory = Files.createTempDirectory(tempDirectory, "external-sort");
+        try {
+            List<Path> runs = spillRuns(reader, directory);
+            // merge fanIn runs at a time until one last merge is left
+            int generation = 0;
+            while (runs.size() > fanIn) {
+                final List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    final List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    final Path run = directory.resolve("merge-" + generation + "-" + merged.size());
+                    try (final Writer runWriter = newWriter(run)) {
+                        merge(group, runWriter);
+                    }
+                    for (Path path : group) {
+                        Files.delete(path);
+                    }
+                    merged.add(run);
+                }
+                runs = merged;
+                generation++;
+            }
+            merge(runs, writer);
+            writer.flush();
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // read chunks, and sort and spill each one in the background
+    private List<Path> spillRuns(BufferedReader reader, Path directory) throws IOException {
+        final List<Path> runs = new ArrayList<>();
+        final ExecutorService spiller = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> pending = null;
+            List<String> chunk = new ArrayList<>();
+            long bytes = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                bytes += LINE_OVERHEAD_BYTES + 2L * line.length();
+                if (bytes >= chunkBytes) {
+                    await(pending);
+                    pending = spiller.submit(spill(chunk, directory, runs));
+                    chunk = new ArrayList<>();
+                    bytes = 0;
+                }
+            }
+            await(pending);
+            if (!chunk.isEmpty() || runs.isEmpty()) {
+                spill(chunk, directory, runs).run();
+            }
+        } finally {
+            spiller.shutdown();
+        }
+        return runs;
+    }
+
+    private Runnable spill(List<String> chunk, Path directory, List<Path> runs) {
+        final Path run = directory.resolve("run-" + runs.size());
+        runs.add(run);
+        return () -> {
+            final String[] lines = chunk.toArray(new String[0]);
+            chunk.clear();
+            ParallelMergeSort.sort(lines, pool);
+            try (final Writer writer = newWriter(run)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while spilling a run", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("failed to spill a run", e.getCause());
+        }
+    }
+
+    // k-way merge of sorted run files into writer
+    private static void merge(List<Path> runs, Writer writer) throws IOException {
+        final BufferedReader[] readers = new BufferedReader[runs.size()];
+        try {
+            final String[] heads = new String[runs.size()];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = newReader(runs.get(i));
+                heads[i] = readers[i].readLine();
+            }
+            final LoserTree tree = new LoserTree(heads);
+            int winner;
+            while ((winner = tree.winner()) != -1) {
+                writer.write(heads[winner]);
+                writer.write('\n');
+                heads[winner] = readers[winner].readLine();
+                tree.replay(winner);
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Tournament tree over the current line of each run. Leaf i (run i) sits
+     * at implicit position k + i, internal node t holds the run that lost
+     * the match played at t, and node 0 holds the overall winner. A run
+     * whose line is null has been exhausted and loses every match; ties go
+     * to the run with the lower index, which keeps the merge stable.
+     */
+    private static final class LoserTree {
+        private final String[] heads;
+        private final int[] tree;
+
+        LoserTree(String[] heads) {
+            this.heads = heads;
+            this.tree = new int[heads.length];
+            // the first run to reach a node waits there for its opponent
+            for (int t = 0; t < tree.length; t++) {
+                tree[t] = -1;
+            }
+            for (int i = heads.length - 1; i >= 0; i--) {
+                replay(i);
+            }
+        }
+
+        // index of the run with the smallest line; -1 if all are exhausted
+        int winner() {
+            return heads[tree[0]] == null ? -1 : tree[0];
+        }
+
+        // replay the matches from leaf run up to the root
+        void replay(int run) {
+            int winner = run;
+            for (int t = (run + heads.length) >>> 1; t > 0; t >>>= 1) {
+                if (tree[t] == -1) {
+                    tree[t] = winner;
+                    return;
+                }
+                if (beats(tree[t], winner)) {
+                    final int loser = winner;
+                    winner = tree[t];
+                    tree[t] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        private boolean beats(int a, int b) {
+            if (heads[a] == null) {
+                return false;
+            }
+            if (heads[b] == null) {
+                return true;
+            }
+            final int cmp = heads[a].compareTo(heads[b]);
+            return cmp < 0 || (cmp == 0 && a < b);
+        }
+    }
+
+    private static BufferedReader newReader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8),
+                BUFFER_CHARS);
+    }
+
+    private static Writer newWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8),
+                BUFFER_CHARS);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (final Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Sort the lines of a file, or of standard input, that may not fit in
+     * memory. Unlike {@link MergeSort#main(String[])}, all lines up to the
+     * end of the input are sorted, including empty ones.
+     *
+     * @param args [0] input file, or "-" for standard input (default)
+     *             [1] output file, or "-" for standard output (default)
+     *             [2] chunk size in megabytes (default 64)
+     *             [3] merge fan-in (default 64)
+     *             [4] directory for temporary files (default java.io.tmpdir)
+     */
+    public static void main(String[] args) throws IOException {
+        final String input = args.length > 0 ? args[0] : "-";
+        final String output = args.length > 1 ? args[1] : "-";
+        final long chunkBytes = args.length > 2 ? Long.parseLong(args[2]) << 20 : DEFAULT_CHUNK_BYTES;
+        final int fanIn = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FAN_IN;
+        final Path tempDirectory = Paths.get(args.length > 4 ? args[4] : System.getProperty("java.io.tmpdir"));
+        final ExternalMergeSort sorter = new ExternalMergeSort(chunkBytes, tempDirectory, fanIn);
+
+        try (final BufferedReader reader = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_CHARS)
+                : newReader(Paths.get(input));
+             final Writer writer = output.equals("-")
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_CHARS)
+                     : newWriter(Paths.get(output))) {
+            sorter.sort(reader, writer);
+        }
+    }
+}
@@ -4,12 +4,17 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Insertion sort.
  * <p>
  * Given an unsorted array of strings, sort the strings in ascending order.
+ * Overloads sort objects with a <code>Comparator</code> and
+ * <code>int</code>, <code>long</code> and <code>double</code> arrays without
+ * boxing; doubles are ordered like <code>Double.compare</code>, so -0.0
+ * comes before 0.0 and NaN comes last.
  * <p>
  * https://en.wikipedia.org/wiki/Insertion_sort
  * https://algs4.cs.princeton.edu/21elementary/
@@ -23,8 +28,20 @@ public class InsertionSort {
     }
 
     public static void sort(String[] data) {
-        for (int i = 1; i < data.length; i++) {
-            for (int j = i; j > 0; j--) {
+        sort(data, 0, data.length);
+    }
+
+    /**
+     * Sort data[lo, hi) in place. Used by other sorts to finish off short
+     * subarrays, where insertion sort beats recursion.
+     *
+     * @param data data to sort
+     * @param lo   first index (inclusive)
+     * @param hi   last index (exclusive)
+     */
+    public static void sort(String[] data, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            for (int j = i; j > lo; j--) {
                 if (data[j - 1].compareTo(data[j]) > 0) {
                     swap(data, j - 1, j);
                 } else {
@@ -34,6 +51,130 @@ public class InsertionSort {
         }
     }
 
+    /**
+     * Sort data[lo, hi) in place, where all the strings in the range are
+     * known to start with the same d characters. Only the characters from
+     * index d onwards are compared, so string sorts that have already
+     * matched a common prefix do not scan it again.
+     *
+     * @param data data to sort
+     * @param lo   first index (inclusive)
+     * @param hi   last index (exclusive)
+     * @param d    length of the prefix shared by data[lo, hi)
+     */
+    public static void sort(String[] data, int lo, int hi, int d) {
+        for (int i = lo + 1; i < hi; i++) {
+            for (int j = i; j > lo; j--) {
+                if (less(data[j], data[j - 1], d)) {
+                    swap(data, j - 1, j);
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    public static <T> void sort(T[] data, Comparator<? super T> comparator) {
+        sort(data, 0, data.length, comparator);
+    }
+
+    /**
+     * Sort data[lo, hi) in place in the order given by comparator. The sort
+     * is stable.
+     *
+     * @param data       data to sort
+     * @param lo         first index (inclusive)
+     * @param hi         last index (exclusive)
+     * @param comparator order of the elements
+     */
+    public static <T> void sort(T[] data, int lo, int hi, Comparator<? super T> comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            final T v = data[i];
+            int j = i;
+            while (j > lo && comparator.compare(v, data[j - 1]) < 0) {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = v;
+        }
+    }
+
+    public static void sort(int[] data) {
+        sort(data, 0, data.length);
+    }
+
+    public static void sort(int[] data, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            final int v = data[i];
+            int j = i;
+            while (j > lo && v < data[j - 1]) {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = v;
+        }
+    }
+
+    public static void sort(long[] data) {
+        sort(data, 0, data.length);
+    }
+
+    public static void sort(long[] data, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            final long v = data[i];
+            int j = i;
+            while (j > lo && v < data[j - 1]) {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = v;
+        }
+    }
+
+    public static void sort(double[] data) {
+        sort(data, 0, data.length);
+    }
+
+    public static void sort(double[] data, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            final double v = data[i];
+            int j = i;
+            while (j > lo && less(v, data[j - 1])) {
+                data[j] = data[j - 1];
+                j--;
+            }
+            data[j] = v;
+        }
+    }
+
+    /**
+     * @return true if a comes before b in the order of
+     * <code>Double.compare</code>; the plain comparison decides all but
+     * equal values and NaN
+     */
+    static boolean less(double a, double b) {
+        if (a < b) {
+            return true;
+        }
+        if (a > b) {
+            return false;
+        }
+        return Double.compare(a, b) < 0;
+    }
+
+    // is v less than w, comparing from index d onwards
+    private static boolean less(String v, String w, int d) {
+        final int n = Math.min(v.length(), w.length());
+        for (int i = d; i < n; i++) {
+            final char c = v.charAt(i);
+            final char e = w.charAt(i);
+            if (c != e) {
+                return c < e;
+            }
+        }
+        return v.length() < w.length();
+    }
+
     private static void swap(String[] data, int i, int j) {
         final String temp = data[i];
         data[i] = data[j];
@@ -0,0 +1,154 @@
+package dev.eddycyu.sort;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sort objects by a primitive key that is extracted once (the Schwartzian
+ * transform, or decorate-sort-undecorate).
+ * <p>
+ * Given objects that are ordered by several fields, pack the fields into one
+ * <code>long</code> per object (see {@link #pack(int, int)}) so that
+ * comparing the longs compares the objects. The keys are sorted together
+ * with the indices of their objects by an LSD radix sort, one byte of the
+ * key per pass, and the objects are then moved to their sorted positions.
+ * Unlike <code>Collections.sort</code> with a <code>Comparator</code>, no
+ * object is dereferenced and no comparator is called during the sort.
+ * <p>
+ * The byte counts of all eight passes are taken in one scan over the keys,
+ * and a pass whose byte is the same for every key is skipped, so keys that
+ * only use their low bytes (e.g. small weights and sizes) take fewer passes.
+ * <p>
+ * The sort is stable.
+ * <p>
+ * https://en.wikipedia.org/wiki/Schwartzian_transform
+ * https://en.wikipedia.org/wiki/Radix_sort#Least_significant_digit
+ * https://algs4.cs.princeton.edu/51radix/LSD.java.html
+ * <p>
+ * Time Complexity: O(n * W) where W (at most 8) is the number of key bytes that vary
+ * Space Complexity: O(n)
+ */
+public class KeySort {
+
+    // arrays up to this size are sorted by MergeSort instead
+    static final int RADIX_SORT_CUTOFF = 256;
+
+    private static final int BITS = 8;
+    private static final int R = 1 << BITS;
+    private static final int PASSES = Long.SIZE / BITS;
+
+    private KeySort() {
+    }
+
+    /**
+     * Pack two ints into a long whose signed order is the order of high,
+     * then of low; like <code>comparingInt(high).thenComparingInt(low)</code>.
+     *
+     * @param high first field to compare
+     * @param low  second field to compare
+     * @return packed key
+     */
+    public static long pack(int high, int low) {
+        // flipping the sign bit of low makes its signed order unsigned
+        return ((long) high << 32) | ((low ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Sort list in ascending order of key, extracting the key of each
+     * element once.
+     *
+     * @param list list to sort
+     * @param key  key of an element
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, ToLongFunction<? super T> key) {
+        final Object[] data = list.toArray();
+        final long[] keys = new long[data.length];
+        for (int i = 0; i < data.length; i++) {
+            keys[i] = key.applyAsLong((T) data[i]);
+        }
+        final int[] order = argsort(keys);
+        final ListIterator<T> iterator = list.listIterator();
+        for (int i : order) {
+            iterator.next();
+            iterator.set((T) data[i]);
+        }
+    }
+
+    /**
+     * Sort data in ascending order of key, extracting the key of each
+     * element once.
+     *
+     * @param data data to sort
+     * @param key  key of an element
+     */
+    public static <T> void sort(T[] data, ToLongFunction<? super T> key) {
+        final long[] keys = new long[data.length];
+        for (int i = 0; i < data.length; i++) {
+            keys[i] = key.applyAsLong(data[i]);
+        }
+        final int[] order = argsort(keys);
+        final T[] copy = data.clone();
+        for (int i = 0; i < order.length; i++) {
+            data[i] = copy[order[i]];
+        }
+    }
+
+    /**
+     * @param keys keys to sort by, in signed order
+     * @return indices of keys in ascending order of their keys; equal keys
+     * keep the order of their indices
+     */
+    public static int[] argsort(long[] keys) {
+        final int N = keys.length;
+        if (N <= RADIX_SORT_CUTOFF) {
+            return MergeSort.argsort(keys);
+        }
+
+        // flip the sign bit so that the unsigned bytes sort in signed order,
+        // and count the bytes of every pass at once
+        long[] key = new long[N];
+        int[] index = new int[N];
+        final int[][] count = new int[PASSES][R];
+        for (int i = 0; i < N; i++) {
+            final long k = keys[i] ^ Long.MIN_VALUE;
+            key[i] = k;
+            index[i] = i;
+            for (int pass = 0; pass < PASSES; pass++) {
+                count[pass][(int) (k >>> (pass * BITS)) & (R - 1)]++;
+            }
+        }
+
+        long[] auxKey = new long[N];
+        int[] auxIndex = new int[N];
+        for (int pass = 0; pass < PASSES; pass++) {
+            final int shift = pass * BITS;
+            final int[] start = count[pass];
+            // every key has the same byte, so this pass would not move anything
+            if (start[(int) (key[0] >>> shift) & (R - 1)] == N) {
+                continue;
+            }
+            // turn the counts into the first position of each byte
+            int sum = 0;
+            for (int r = 0; r < R; r++) {
+                final int c = start[r];
+                start[r] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < N; i++) {
+                final long k = key[i];
+                final int position = start[(int) (k >>> shift) & (R - 1)]++;
+                auxKey[position] = k;
+                auxIndex[position] = index[i];
+            }
+            final long[] tempKey = key;
+            key = auxKey;
+            auxKey = tempKey;
+            final int[] tempIndex = index;
+            index = auxIndex;
+            auxIndex = tempIndex;
+        }
+        return index;
+    }
+}
@@ -4,13 +4,29 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Merge sort.
  * <p>
  * Given an unsorted array of strings, sort the strings in ascending order.
  * <p>
+ * Overloads sort:
+ * <ul>
+ * <li>objects in the order of a <code>Comparator</code>;</li>
+ * <li><code>int</code>, <code>long</code> and <code>double</code> arrays
+ * without boxing (doubles in the order of <code>Double.compare</code>);</li>
+ * <li>an index array by the keys it points to (argsort), so parallel arrays
+ * can be reordered by one of them.</li>
+ * </ul>
+ * These hand subarrays of at most {@link #INSERTION_SORT_CUTOFF} elements to
+ * {@link InsertionSort}, swap the roles of the data and auxiliary arrays at
+ * each level instead of copying back, and skip the merge when the two halves
+ * are already in order. All the sorts are stable.
+ * <p>
  * https://en.wikipedia.org/wiki/Merge_sort
  * https://algs4.cs.princeton.edu/22mergesort/Merge.java.html
  * <p>
@@ -19,6 +35,8 @@ import java.util.List;
  */
 public class MergeSort {
 
+    static final int INSERTION_SORT_CUTOFF = 12;
+
     private MergeSort() {
     }
 
@@ -60,7 +78,226 @@ public class MergeSort {
         }
     }
 
+    /**
+     * Sort data in the order given by comparator.
+     *
+     * @param data       data to sort
+     * @param comparator order of the elements
+     */
+    public static <T> void sort(T[] data, Comparator<? super T> comparator) {
+        final T[] aux = data.clone();
+        sort(aux, data, 0, data.length, comparator);
+    }
+
+    // sort src[lo, hi) into dst[lo, hi); both hold the same elements on entry
+    private static <T> void sort(T[] src, T[] dst, int lo, int hi, Comparator<? super T> comparator) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            InsertionSort.sort(dst, lo, hi, comparator);
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        sort(dst, src, lo, mid, comparator);
+        sort(dst, src, mid, hi, comparator);
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid || (j < hi && comparator.compare(src[j], src[i]) < 0)) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    public static void sort(int[] data) {
+        final int[] aux = data.clone();
+        sort(aux, data, 0, data.length);
+    }
+
+    private static void sort(int[] src, int[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            InsertionSort.sort(dst, lo, hi);
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        sort(dst, src, lo, mid);
+        sort(dst, src, mid, hi);
+        if (src[mid - 1] <= src[mid]) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid || (j < hi && src[j] < src[i])) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    public static void sort(long[] data) {
+        final long[] aux = data.clone();
+        sort(aux, data, 0, data.length);
+    }
+
+    private static void sort(long[] src, long[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            InsertionSort.sort(dst, lo, hi);
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        sort(dst, src, lo, mid);
+        sort(dst, src, mid, hi);
+        if (src[mid - 1] <= src[mid]) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid || (j < hi && src[j] < src[i])) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    public static void sort(double[] data) {
+        final double[] aux = data.clone();
+        sort(aux, data, 0, data.length);
+    }
+
+    private static void sort(double[] src, double[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            InsertionSort.sort(dst, lo, hi);
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        sort(dst, src, lo, mid);
+        sort(dst, src, mid, hi);
+        if (!InsertionSort.less(src[mid], src[mid - 1])) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid || (j < hi && InsertionSort.less(src[j], src[i]))) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    /**
+     * @param keys keys to sort by
+     * @return indices of keys in ascending order of their keys; equal keys
+     * keep the order of their indices
+     */
+    public static int[] argsort(int[] keys) {
+        final long[] wide = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            wide[i] = keys[i];
+        }
+        return argsort(wide);
+    }
+
+    /**
+     * @param keys keys to sort by
+     * @return indices of keys in ascending order of their keys; equal keys
+     * keep the order of their indices
+     */
+    public static int[] argsort(long[] keys) {
+        final int[] index = new int[keys.length];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = i;
+        }
+        sortByKey(index, keys);
+        return index;
+    }
+
+    /**
+     * @param keys keys to sort by, in the order of <code>Double.compare</code>
+     * @return indices of keys in ascending order of their keys; equal keys
+     * keep the order of their indices
+     */
+    public static int[] argsort(double[] keys) {
+        // the bits of a double, with the magnitude bits flipped when the sign
+        // bit is set, compare as longs like Double.compare compares doubles
+        final long[] bits = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final long b = Double.doubleToLongBits(keys[i]);
+            bits[i] = b ^ ((b >> 63) & Long.MAX_VALUE);
+        }
+        return argsort(bits);
+    }
+
+    /**
+     * Reorder index so that keys[index[0]], keys[index[1]], ... are in
+     * ascending order. Entries with equal keys keep their relative order, so
+     * sorting by a secondary key first and then by a primary key orders by
+     * both.
+     *
+     * @param index indices into keys; need not cover all of keys
+     * @param keys  keys to sort by
+     */
+    public static void sortByKey(int[] index, long[] keys) {
+        final int[] aux = index.clone();
+        sortByKey(aux, index, 0, index.length, keys);
+    }
+
+    private static void sortByKey(int[] src, int[] dst, int lo, int hi, long[] keys) {
+        if (hi - lo <= INSERTION_SORT_CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                final int v = dst[i];
+                final long key = keys[v];
+                int j = i;
+                while (j > lo && key < keys[dst[j - 1]]) {
+                    dst[j] = dst[j - 1];
+                    j--;
+                }
+                dst[j] = v;
+            }
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        sortByKey(dst, src, lo, mid, keys);
+        sortByKey(dst, src, mid, hi, keys);
+        if (keys[src[mid - 1]] <= keys[src[mid]]) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid || (j < hi && keys[src[j]] < keys[src[i]])) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    /**
+     * Sort lines from standard input, or benchmark each overload against
+     * Arrays.sort when a size is given.
+     *
+     * @param args [0] number of random keys to benchmark with
+     */
     public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            benchmark(Integer.parseInt(args[0]));
+            return;
+        }
+
         try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
             // read data from standard input
             String line;
@@ -90,4 +327,99 @@ public class MergeSort {
             }
         }
     }
+
+    private static void benchmark(int N) {
+        final Random random = new Random(42);
+        final int[] ints = new int[N];
+        final long[] longs = new long[N];
+        final double[] doubles = new double[N];
+        final Integer[] boxed = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextGaussian();
+            boxed[i] = ints[i];
+        }
+        final Comparator<Integer> reverse = Comparator.reverseOrder();
+        final Integer[] identity = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            identity[i] = i;
+        }
+
+        System.out.printf("N=%d, best of 5 runs%n", N);
+        System.out.println("overload                 MergeSort ms   Arrays.sort ms");
+        final String[] names = {"int[]", "long[]", "double[]", "Integer[] comparator", "argsort long[]"};
+        for (int s = 0; s < names.length; s++) {
+            long mine = Long.MAX_VALUE;
+            long jdk = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                final long start;
+                final long middle;
+                final boolean same;
+                switch (s) {
+                    case 0: {
+                        final int[] a = ints.clone();
+                        final int[] b = ints.clone();
+                        start = System.nanoTime();
+                        sort(a);
+                        middle = System.nanoTime();
+                        Arrays.sort(b);
+                        same = Arrays.equals(a, b);
+                        break;
+                    }
+                    case 1: {
+                        final long[] a = longs.clone();
+                        final long[] b = longs.clone();
+                        start = System.nanoTime();
+                        sort(a);
+                        middle = System.nanoTime();
+                        Arrays.sort(b);
+                        same = Arrays.equals(a, b);
+                        break;
+                    }
+                    case 2: {
+                        final double[] a = doubles.clone();
+                        final double[] b = doubles.clone();
+                        start = System.nanoTime();
+                        sort(a);
+                        middle = System.nanoTime();
+                        Arrays.sort(b);
+                        same = Arrays.equals(a, b);
+                        break;
+                    }
+                    case 3: {
+                        final Integer[] a = boxed.clone();
+                        final Integer[] b = boxed.clone();
+                        start = System.nanoTime();
+                        sort(a, reverse);
+                        middle = System.nanoTime();
+                        Arrays.sort(b, reverse);
+                        same = Arrays.equals(a, b);
+                        break;
+                    }
+                    default: {
+                        // the JDK has no argsort: sort boxed indices by key
+                        final Integer[] b = identity.clone();
+                        start = System.nanoTime();
+                        final int[] a = argsort(longs);
+                        middle = System.nanoTime();
+                        Arrays.sort(b, (i, j) -> Long.compare(longs[i], longs[j]));
+                        boolean equal = true;
+                        for (int i = 0; i < N && equal; i++) {
+                            equal = a[i] == b[i];
+                        }
+                        same = equal;
+                        break;
+                    }
+                }
+                final long end = System.nanoTime();
+                if (!same) {
+                    throw new IllegalStateException(names[s] + " did not sort");
+                }
+                mine = Math.min(mine, middle - start);
+                jdk = Math.min(jdk, end - middle);
+            }
+            System.out.printf("%-24s %12d %16d%n", names[s], mine / 1_000_000, jdk / 1_000_000);
+        }
+    }
 }
@@ -0,0 +1,231 @@
+package dev.eddycyu.sort;
+
+import dev.eddycyu.random.Generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Most significant digit (MSD) radix sort.
+ * <p>
+ * Given an unsorted array of strings, sort the strings in ascending order
+ * without comparing whole strings. The strings are distributed into buckets
+ * by their first digit with a counting sort, then each bucket is sorted
+ * recursively by the next digit. Every character is examined at most once
+ * per level, so long shared prefixes are not scanned over and over like they
+ * are by <code>String.compareTo</code>.
+ * <p>
+ * A digit is one byte of a UTF-16 char (the high byte, then the low byte),
+ * so the count array has 256 + 1 entries (one extra for strings that have
+ * ended) instead of 65536. When all the strings in a subarray have the same
+ * digit, e.g. in a shared prefix or in the high bytes of ASCII text, the
+ * distribution is skipped and the whole prefix they share is skipped in a
+ * single pass over the strings. Subarrays of at most
+ * {@link #INSERTION_SORT_CUTOFF} strings are handed to {@link InsertionSort},
+ * which compares them from the current character onwards.
+ * <p>
+ * The sort is stable.
+ * <p>
+ * https://en.wikipedia.org/wiki/Radix_sort#Most_significant_digit
+ * https://algs4.cs.princeton.edu/51radix/MSD.java.html
+ * <p>
+ * Time Complexity: O(N * W) where W is the average length of the strings
+ * Space Complexity: O(N + W * R) where R is the number of digit values
+ */
+public class MsdRadixSort {
+
+    static final int INSERTION_SORT_CUTOFF = 16;
+
+    private static final int R = 256;
+
+    private MsdRadixSort() {
+    }
+
+    public static void sort(String[] data) {
+        final String[] aux = new String[data.length];
+        final int[] digits = new int[data.length];
+        sort(data, aux, digits, 0, data.length, 0);
+    }
+
+    // sort data[lo, hi) whose strings share their first d digits
+    private static void sort(String[] data, String[] aux, int[] digits, int lo, int hi, int d) {
+        while (true) {
+            if (hi - lo <= INSERTION_SORT_CUTOFF) {
+                // a shared odd number of digits only covers the high byte of
+                // the last char, so compare that char again
+                InsertionSort.sort(data, lo, hi, d >>> 1);
+                return;
+            }
+
+            // count the strings with each digit, shifted by one so that -1
+            // (string has ended) is counted first
+            final int[] count = new int[R + 2];
+            for (int i = lo; i < hi; i++) {
+                final int digit = digit(data[i], d);
+                digits[i] = digit;
+                count[digit + 2]++;
+            }
+
+            // all strings have the same digit: skip the whole prefix they
+            // share in one pass instead of one digit per pass
+            final int first = digits[lo];
+            if (count[first + 2] == hi - lo) {
+                if (first == -1) {
+                    return;
+                }
+                // a shared high byte does not mean a shared char, so move on
+                // by at least one digit
+                final int c = d >>> 1;
+                d = Math.max(d + 1, 2 * (c + commonPrefixLength(data, lo, hi, c)));
+                continue;
+            }
+
+            // distribute into aux and copy back
+            for (int r = 0; r < R + 1; r++) {
+                count[r + 1] += count[r];
+            }
+            for (int i = lo; i < hi; i++) {
+                aux[count[digits[i] + 1]++] = data[i];
+            }
+            System.arraycopy(aux, 0, data, lo, hi - lo);
+
+            // sort each bucket by the next digit; the strings that have ended
+            // (bucket -1) are all equal
+            for (int r = 0; r < R; r++) {
+                if (count[r + 1] - count[r] > 1) {
+                    sort(data, aux, digits, lo + count[r], lo + count[r + 1], d + 1);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return number of characters from index d onwards that all the
+     * strings in data[lo, hi) have in common
+     */
+    static int commonPrefixLength(String[] data, int lo, int hi, int d) {
+        final String first = data[lo];
+        int length = first.length() - d;
+        for (int i = lo + 1; i < hi && length > 0; i++) {
+            final String s = data[i];
+            final int n = Math.min(length, s.length() - d);
+            int k = 0;
+            while (k < n && s.charAt(d + k) == first.charAt(d + k)) {
+                k++;
+            }
+            length = k;
+        }
+        return Math.max(length, 0);
+    }
+
+    // digit d of s: the high byte of char d / 2 if d is even, the low byte
+    // otherwise; -1 past the end of s
+    private static int digit(String s, int d) {
+        final int index = d >>> 1;
+        if (index >= s.length()) {
+            return -1;
+        }
+        final char c = s.charAt(index);
+        return (d & 1) == 0 ? c >>> 8 : c & 0xFF;
+    }
+
+    /**
+     * Sort lines from standard input, or benchmark the string sorts when a
+     * size is given.
+     *
+     * @param args [0] number of random strings to benchmark with
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            final int N = Integer.parseInt(args[0]);
+            benchmark("random strings of length 12",
+                    Generator.randomStrings(N, 12, "abcdefghijklmnopqrstuvwxyz"));
+
+            // URL-like keys: a few long prefixes followed by a short random
+            // path, so most comparisons scan dozens of equal characters
+            final String[] prefixes = {
+                    "https://www.example.com/static/assets/images/thumbnails/",
+                    "https://www.example.com/static/assets/scripts/vendor/",
+                    "https://cdn.example.org/content/production/2024/logs/"};
+            final Random random = new Random(42);
+            final String[] paths = Generator.randomStrings(N, 10, "abcdefghijklmnopqrstuvwxyz0123456789/");
+            final String[] urls = new String[N];
+            for (int i = 0; i < N; i++) {
+                urls[i] = prefixes[random.nextInt(prefixes.length)] + paths[i];
+            }
+            benchmark("URLs with shared prefixes", urls);
+            return;
+        }
+
+        try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
+            // read data from standard input
+            String line;
+            final List<String> data = new ArrayList<>();
+            while (true) {
+                line = bf.readLine();
+                if ((line == null) || line.isEmpty()) {
+                    break;
+                }
+                data.add(line);
+            }
+
+            // terminate if no data was read
+            if (data.isEmpty()) {
+                return;
+            }
+
+            // convert list to array
+            final String[] strings = data.toArray(new String[0]);
+
+            // sort
+            sort(strings);
+
+            // output
+            for (String sortedString : strings) {
+                System.out.println(sortedString);
+            }
+        }
+    }
+
+    private static void benchmark(String title, String[] strings) {
+        final String[] expected = strings.clone();
+        Arrays.sort(expected);
+        System.out.printf("%s (N=%d)%n", title, strings.length);
+        final String[] names = {"MergeSort", "Arrays.sort", "MsdRadixSort", "ThreeWayStringQuickSort"};
+        final long[] best = new long[names.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int round = 0; round < 3; round++) {
+            for (int s = 0; s < names.length; s++) {
+                final String[] data = strings.clone();
+                final long start = System.nanoTime();
+                switch (s) {
+                    case 0:
+                        MergeSort.sort(data);
+                        break;
+                    case 1:
+                        Arrays.sort(data);
+                        break;
+                    case 2:
+                        sort(data);
+                        break;
+                    default:
+                        ThreeWayStringQuickSort.sort(data);
+                        break;
+                }
+                best[s] = Math.min(best[s], System.nanoTime() - start);
+                if (!Arrays.equals(expected, data)) {
+                    throw new IllegalStateException(names[s] + " did not sort");
+                }
+            }
+        }
+        for (int s = 0; s < names.length; s++) {
+            System.out.printf("  %-24s %6d ms%n", names[s], best[s] / 1_000_000);
+        }
+    }
+}
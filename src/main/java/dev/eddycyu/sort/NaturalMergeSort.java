@@ -0,0 +1,612 @@
+package dev.eddycyu.sort;
+
+import dev.eddycyu.random.Generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Natural merge sort in the style of TimSort by Tim Peters.
+ * <p>
+ * Given an unsorted array of strings, sort the strings in ascending order,
+ * taking advantage of the order that is already there. Where
+ * {@link MergeSort} always splits the array in half, this sort merges the
+ * runs it finds in the input:
+ * <ul>
+ * <li>The input is scanned from left to right for runs that are ascending,
+ * or strictly descending (these are reversed in place). A run that is
+ * shorter than the minimum run length (16 to 32, chosen so that the number
+ * of runs is close to a power of two) is extended with binary insertion
+ * sort.</li>
+ * <li>The runs are pushed on a stack and merged with their neighbours while
+ * the lengths at the top of the stack do not shrink at least as fast as the
+ * Fibonacci numbers, which keeps the merges balanced and the stack short.</li>
+ * <li>Before a merge, the part of the left run that is not greater than the
+ * first element of the right run, and the part of the right run that is not
+ * less than the last element of the left run, are located with a galloping
+ * (exponential) search; they are already in place. Only the smaller of the
+ * remaining runs is copied to the auxiliary array.</li>
+ * <li>While one run keeps winning {@link #MIN_GALLOP} times in a row, the
+ * merge gallops: it searches for the end of the winning streak and copies
+ * it in bulk. The threshold adapts to how well galloping pays off.</li>
+ * </ul>
+ * An input that is already sorted, or reversed, takes N - 1 comparisons,
+ * and an input that is a few sorted runs takes O(N log R) for R runs.
+ * <p>
+ * The sort is stable.
+ * <p>
+ * https://en.wikipedia.org/wiki/Timsort
+ * https://github.com/python/cpython/blob/main/Objects/listsort.txt
+ * <p>
+ * Time Complexity: O(n log n), O(n) for input with few runs
+ * Space Complexity: O(n)
+ */
+public class NaturalMergeSort {
+
+    // arrays shorter than this are sorted with binary insertion sort alone
+    static final int MIN_MERGE = 32;
+
+    static final int MIN_GALLOP = 7;
+
+    // enough for any int length because run lengths grow like Fibonacci numbers
+    private static final int MAX_RUNS = 49;
+
+    private NaturalMergeSort() {
+    }
+
+    public static void sort(String[] data) {
+        sort(data, Comparator.naturalOrder());
+    }
+
+    /**
+     * Sort data in the order given by comparator.
+     *
+     * @param data       data to sort
+     * @param comparator order of the elements
+     */
+    public static <T> void sort(T[] data, Comparator<? super T> comparator) {
+        final int N = data.length;
+        if (N < 2) {
+            return;
+        }
+        if (N < MIN_MERGE) {
+            final int run = countRunAndMakeAscending(data, 0, N, comparator);
+            binaryInsertionSort(data, 0, N, run, comparator);
+            return;
+        }
+        final Merger<T> merger = new Merger<>(data, comparator);
+        final int minRun = minRunLength(N);
+        int lo = 0;
+        while (lo < N) {
+            int run = countRunAndMakeAscending(data, lo, N, comparator);
+            if (run < minRun) {
+                final int forced = Math.min(minRun, N - lo);
+                binaryInsertionSort(data, lo, lo + forced, lo + run, comparator);
+                run = forced;
+            }
+            merger.push(lo, run);
+            merger.mergeCollapse();
+            lo += run;
+        }
+        merger.mergeForceCollapse();
+    }
+
+    // length of the run that starts at lo, reversing it if it is descending
+    private static <T> int countRunAndMakeAscending(T[] data, int lo, int hi, Comparator<? super T> comparator) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        if (comparator.compare(data[runHi++], data[lo]) < 0) {
+            // strictly descending, so reversing it keeps the sort stable
+            while (runHi < hi && comparator.compare(data[runHi], data[runHi - 1]) < 0) {
+                runHi++;
+            }
+            for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                final T temp = data[i];
+                data[i] = data[j];
+                data[j] = temp;
+            }
+        } else {
+            while (runHi < hi && comparator.compare(data[runHi], data[runHi - 1]) >= 0) {
+                runHi++;
+            }
+        }
+        return runHi - lo;
+    }
+
+    // sort data[lo, hi) whose prefix data[lo, start) is already sorted
+    private static <T> void binaryInsertionSort(T[] data, int lo, int hi, int start,
+                                                Comparator<? super T> comparator) {
+        for (int i = Math.max(start, lo + 1); i < hi; i++) {
+            final T pivot = data[i];
+            // insert after the elements equal to pivot to keep the sort stable
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                final int mid = (left + right) >>> 1;
+                if (comparator.compare(pivot, data[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(data, left, data, left + 1, i - left);
+            data[left] = pivot;
+        }
+    }
+
+    // N if it is small, otherwise a length in [MIN_MERGE / 2, MIN_MERGE] such
+    // that N / length is a power of two or slightly less than one
+    private static int minRunLength(int N) {
+        int r = 0;
+        while (N >= MIN_MERGE) {
+            r |= N & 1;
+            N >>= 1;
+        }
+        return N + r;
+    }
+
+    /**
+     * The stack of pending runs and the merges between them.
+     */
+    private static final class Merger<T> {
+        private final T[] data;
+        private final Comparator<? super T> comparator;
+        private final int[] runBase = new int[MAX_RUNS];
+        private final int[] runLength = new int[MAX_RUNS];
+        private int runs;
+        private int minGallop = MIN_GALLOP;
+        private T[] aux;
+
+        Merger(T[] data, Comparator<? super T> comparator) {
+            this.data = data;
+            this.comparator = comparator;
+            this.aux = Arrays.copyOf(data, Math.min(256, data.length >>> 1));
+        }
+
+        void push(int base, int length) {
+            runBase[runs] = base;
+            runLength[runs] = length;
+            runs++;
+        }
+
+        // merge until, from the top of the stack down, each run is longer
+        // than the one above it and longer than the two above it together
+        void mergeCollapse() {
+            while (runs > 1) {
+                int n = runs - 2;
+                if ((n > 0 && runLength[n - 1] <= runLength[n] + runLength[n + 1])
+                        || (n > 1 && runLength[n - 2] <= runLength[n] + runLength[n - 1])) {
+                    // merge the middle run with the shorter of its neighbours
+                    if (runLength[n - 1] < runLength[n + 1]) {
+                        n--;
+                    }
+                } else if (runLength[n] > runLength[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+
+        void mergeForceCollapse() {
+            while (runs > 1) {
+                int n = runs - 2;
+                if (n > 0 && runLength[n - 1] < runLength[n + 1]) {
+                    n--;
+                }
+                mergeAt(n);
+            }
+        }
+
+        // merge run i with run i + 1
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int length1 = runLength[i];
+            final int base2 = runBase[i + 1];
+            int length2 = runLength[i + 1];
+            runLength[i] = length1 + length2;
+            if (i == runs - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLength[i + 1] = runLength[i + 2];
+            }
+            runs--;
+
+            // elements of run 1 up to the first of run 2 are already in place
+            final int k = gallopRight(data[base2], data, base1, length1, 0);
+            base1 += k;
+            length1 -= k;
+            if (length1 == 0) {
+                return;
+            }
+            // and so are elements of run 2 from the last of run 1 onwards
+            length2 = gallopLeft(data[base1 + length1 - 1], data, base2, length2, length2 - 1);
+            if (length2 == 0) {
+                return;
+            }
+            if (length1 <= length2) {
+                mergeLo(base1, length1, base2, length2);
+            } else {
+                mergeHi(base1, length1, base2, length2);
+            }
+        }
+
+        // merge from the left, with run 1 copied to aux
+        private void mergeLo(int base1, int length1, int base2, int length2) {
+            final T[] a = data;
+            final T[] tmp = ensureCapacity(length1);
+            System.arraycopy(a, base1, tmp, 0, length1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            int gallop = minGallop;
+            outer:
+            while (true) {
+                // one element at a time until one run wins gallop times in a row
+                int count1 = 0;
+                int count2 = 0;
+                do {
+                    if (comparator.compare(a[cursor2], tmp[cursor1]) < 0) {
+                        a[dest++] = a[cursor2++];
+                        count2++;
+                        count1 = 0;
+                        if (--length2 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest++] = tmp[cursor1++];
+                        count1++;
+                        count2 = 0;
+                        if (--length1 == 0) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < gallop);
+
+                // gallop while the streaks stay long
+                do {
+                    count1 = gallopRight(a[cursor2], tmp, cursor1, length1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(tmp, cursor1, a, dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        length1 -= count1;
+                        if (length1 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = a[cursor2++];
+                    if (--length2 == 0) {
+                        break outer;
+                    }
+                    count2 = gallopLeft(tmp[cursor1], a, cursor2, length2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, cursor2, a, dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        length2 -= count2;
+                        if (length2 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = tmp[cursor1++];
+                    if (--length1 == 0) {
+                        break outer;
+                    }
+                    gallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                // galloping stopped paying off; make it harder to start again
+                gallop = Math.max(gallop, 0) + 2;
+            }
+            minGallop = Math.max(gallop, 1);
+            // what is left of run 2 is already in place
+            if (length1 > 0) {
+                System.arraycopy(tmp, cursor1, a, dest, length1);
+            }
+        }
+
+        // merge from the right, with run 2 copied to aux
+        private void mergeHi(int base1, int length1, int base2, int length2) {
+            final T[] a = data;
+            final T[] tmp = ensureCapacity(length2);
+            System.arraycopy(a, base2, tmp, 0, length2);
+            int cursor1 = base1 + length1 - 1;
+            int cursor2 = length2 - 1;
+            int dest = base2 + length2 - 1;
+            int gallop = minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                do {
+                    if (comparator.compare(tmp[cursor2], a[cursor1]) < 0) {
+                        a[dest--] = a[cursor1--];
+                        count1++;
+                        count2 = 0;
+                        if (--length1 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest--] = tmp[cursor2--];
+                        count2++;
+                        count1 = 0;
+                        if (--length2 == 0) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < gallop);
+
+                do {
+                    // elements of run 1 greater than the last of run 2
+                    count1 = length1 - gallopRight(tmp[cursor2], a, base1, length1, length1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        length1 -= count1;
+                        System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                        if (length1 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = tmp[cursor2--];
+                    if (--length2 == 0) {
+                        break outer;
+                    }
+                    // elements of run 2 not less than the last of run 1
+                    count2 = length2 - gallopLeft(a[cursor1], tmp, 0, length2, length2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        length2 -= count2;
+                        System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                        if (length2 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = a[cursor1--];
+                    if (--length1 == 0) {
+                        break outer;
+                    }
+                    gallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                gallop = Math.max(gallop, 0) + 2;
+            }
+            minGallop = Math.max(gallop, 1);
+            // what is left of run 1 is already in place
+            if (length2 > 0) {
+                System.arraycopy(tmp, 0, a, dest - length2 + 1, length2);
+            }
+        }
+
+        /**
+         * @return k in [0, length] such that a[base + k - 1] < key <= a[base + k],
+         * searching outwards from a[base + hint]
+         */
+        private int gallopLeft(T key, T[] a, int base, int length, int hint) {
+            int lastOffset = 0;
+            int offset = 1;
+            if (comparator.compare(key, a[base + hint]) > 0) {
+                // gallop right until a[base + hint + lastOffset] < key <= a[base + hint + offset]
+                final int maxOffset = length - hint;
+                while (offset < maxOffset && comparator.compare(key, a[base + hint + offset]) > 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+                offset = Math.min(offset, maxOffset);
+                lastOffset += hint;
+                offset += hint;
+            } else {
+                // gallop left until a[base + hint - offset] < key <= a[base + hint - lastOffset]
+                final int maxOffset = hint + 1;
+                while (offset < maxOffset && comparator.compare(key, a[base + hint - offset]) <= 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+                offset = Math.min(offset, maxOffset);
+                final int temp = lastOffset;
+                lastOffset = hint - offset;
+                offset = hint - temp;
+            }
+            // binary search in (lastOffset, offset]
+            lastOffset++;
+            while (lastOffset < offset) {
+                final int mid = (lastOffset + offset) >>> 1;
+                if (comparator.compare(key, a[base + mid]) > 0) {
+                    lastOffset = mid + 1;
+                } else {
+                    offset = mid;
+                }
+            }
+            return offset;
+        }
+
+        /**
+         * @return k in [0, length] such that a[base + k - 1] <= key < a[base + k],
+         * searching outwards from a[base + hint]
+         */
+        private int gallopRight(T key, T[] a, int base, int length, int hint) {
+            int lastOffset = 0;
+            int offset = 1;
+            if (comparator.compare(key, a[base + hint]) < 0) {
+                // gallop left until a[base + hint - offset] <= key < a[base + hint - lastOffset]
+                final int maxOffset = hint + 1;
+                while (offset < maxOffset && comparator.compare(key, a[base + hint - offset]) < 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+                offset = Math.min(offset, maxOffset);
+                final int temp = lastOffset;
+                lastOffset = hint - offset;
+                offset = hint - temp;
+            } else {
+                // gallop right until a[base + hint + lastOffset] <= key < a[base + hint + offset]
+                final int maxOffset = length - hint;
+                while (offset < maxOffset && comparator.compare(key, a[base + hint + offset]) >= 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+                offset = Math.min(offset, maxOffset);
+                lastOffset += hint;
+                offset += hint;
+            }
+            lastOffset++;
+            while (lastOffset < offset) {
+                final int mid = (lastOffset + offset) >>> 1;
+                if (comparator.compare(key, a[base + mid]) < 0) {
+                    offset = mid;
+                } else {
+                    lastOffset = mid + 1;
+                }
+            }
+            return offset;
+        }
+
+        private T[] ensureCapacity(int length) {
+            if (aux.length < length) {
+                // grow geometrically, but never beyond half of the data
+                final int capacity = Math.max(length, Math.min(aux.length << 1, data.length >>> 1));
+                aux = Arrays.copyOf(data, capacity);
+            }
+            return aux;
+        }
+    }
+
+    /**
+     * Sort lines from standard input, or benchmark against MergeSort and
+     * Arrays.sort on random and nearly sorted inputs when a size is given.
+     *
+     * @param args [0] number of random strings to benchmark with
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            benchmark(Integer.parseInt(args[0]));
+            return;
+        }
+
+        try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
+            // read data from standard input
+            String line;
+            final List<String> data = new ArrayList<>();
+            while (true) {
+                line = bf.readLine();
+                if ((line == null) || line.isEmpty()) {
+                    break;
+                }
+                data.add(line);
+            }
+
+            // terminate if no data was read
+            if (data.isEmpty()) {
+                return;
+            }
+
+            // convert list to array
+            final String[] strings = data.toArray(new String[0]);
+
+            // sort
+            sort(strings);
+
+            // output
+            for (String sortedString : strings) {
+                System.out.println(sortedString);
+            }
+        }
+    }
+
+    private static void benchmark(int N) {
+        final Random random = new Random(42);
+        final String[] strings = Generator.randomStrings(N, 12, "abcdefghijklmnopqrstuvwxyz");
+        final String[] sorted = strings.clone();
+        Arrays.sort(sorted);
+
+        final String[] reversed = new String[N];
+        for (int i = 0; i < N; i++) {
+            reversed[i] = sorted[N - 1 - i];
+        }
+        // a sorted snapshot with 1% of the entries updated in place
+        final String[] updated = sorted.clone();
+        for (int i = 0; i < N / 100; i++) {
+            updated[random.nextInt(N)] = strings[random.nextInt(N)];
+        }
+        // a sorted log with 1% new entries appended
+        final String[] appended = Arrays.copyOf(sorted, N + N / 100);
+        for (int i = N; i < appended.length; i++) {
+            appended[i] = strings[random.nextInt(N)];
+        }
+
+        final String[] titles = {"random", "sorted", "reversed", "1% updated", "1% appended"};
+        final String[][] inputs = {strings, sorted, reversed, updated, appended};
+        final String[] names = {"MergeSort", "NaturalMergeSort", "Arrays.sort"};
+        System.out.printf("N=%d, best of 5 runs; ms (comparisons per element)%n", N);
+        System.out.printf("%-12s %18s %18s %18s%n", "input", names[0], names[1], names[2]);
+        for (int t = 0; t < inputs.length; t++) {
+            final String[] expected = inputs[t].clone();
+            Arrays.sort(expected);
+            final long[] best = new long[names.length];
+            final long[] comparisons = new long[names.length];
+            Arrays.fill(best, Long.MAX_VALUE);
+            for (int run = 0; run < 5; run++) {
+                for (int s = 0; s < names.length; s++) {
+                    final String[] data = inputs[t].clone();
+                    final long start = System.nanoTime();
+                    switch (s) {
+                        case 0:
+                            MergeSort.sort(data);
+                            break;
+                        case 1:
+                            sort(data);
+                            break;
+                        default:
+                            Arrays.sort(data);
+                            break;
+                    }
+                    best[s] = Math.min(best[s], System.nanoTime() - start);
+                    if (!Arrays.equals(expected, data)) {
+                        throw new IllegalStateException(names[s] + " did not sort " + titles[t]);
+                    }
+                }
+            }
+            // count comparisons in a separate, untimed run; MergeSort only
+            // takes a comparator in the overload that skips ordered merges
+            for (int s = 0; s < names.length; s++) {
+                final long[] count = new long[1];
+                final Comparator<String> counting = (a, b) -> {
+                    count[0]++;
+                    return a.compareTo(b);
+                };
+                final String[] data = inputs[t].clone();
+                if (s == 0) {
+                    MergeSort.sort(data, counting);
+                } else if (s == 1) {
+                    sort(data, counting);
+                } else {
+                    Arrays.sort(data, counting);
+                }
+                comparisons[s] = count[0];
+            }
+            System.out.printf("%-12s", titles[t]);
+            for (int s = 0; s < names.length; s++) {
+                System.out.printf(" %9d (%5.1f)", best[s] / 1_000_000, (double) comparisons[s] / inputs[t].length);
+            }
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dev.eddycyu.sort;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Three-way string quicksort (multikey quicksort) by Bentley and Sedgewick.
+ * <p>
+ * Given an unsorted array of strings, sort the strings in ascending order.
+ * The strings are partitioned by a single character at a time into those
+ * whose character is less than, equal to and greater than the character of
+ * the pivot. The less and greater parts are sorted by the same character,
+ * and the equal part by the next character, so like {@link MsdRadixSort} a
+ * shared prefix is only scanned once per string. When all the strings have
+ * the same character, the whole prefix they share is skipped at once.
+ * Unlike MSD radix sort it needs no count arrays or auxiliary array, which
+ * makes it the better choice for subarrays with few distinct characters.
+ * <p>
+ * The pivot is the median of the first, middle and last string, so sorted
+ * input does not degrade to quadratic time. Subarrays of at most
+ * {@link #INSERTION_SORT_CUTOFF} strings are handed to {@link InsertionSort},
+ * which compares them from the current character onwards.
+ * <p>
+ * The sort is not stable.
+ * <p>
+ * https://en.wikipedia.org/wiki/Multi-key_quicksort
+ * https://algs4.cs.princeton.edu/51radix/Quick3string.java.html
+ * <p>
+ * Time Complexity: O(N * W) on average where W is the average length of the
+ * distinguishing prefixes; O(N log N) character comparisons for random strings
+ * Space Complexity: O(W + log N) for the recursion
+ */
+public class ThreeWayStringQuickSort {
+
+    static final int INSERTION_SORT_CUTOFF = 12;
+
+    private ThreeWayStringQuickSort() {
+    }
+
+    public static void sort(String[] data) {
+        sort(data, 0, data.length, 0);
+    }
+
+    // sort data[lo, hi) whose strings share their first d characters
+    private static void sort(String[] data, int lo, int hi, int d) {
+        while (hi - lo > INSERTION_SORT_CUTOFF) {
+            swap(data, lo, medianOfThree(data, lo, (lo + hi) >>> 1, hi - 1, d));
+            final int v = charAt(data[lo], d);
+
+            // data[lo, lt) < v = data[lt, gt) < data[gt, hi)
+            int lt = lo;
+            int gt = hi;
+            int i = lo + 1;
+            while (i < gt) {
+                final int t = charAt(data[i], d);
+                if (t < v) {
+                    swap(data, lt++, i++);
+                } else if (t > v) {
+                    swap(data, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+
+            if (lt == lo && gt == hi) {
+                // all strings have the same character: skip the whole prefix
+                // they share in one pass instead of one character per pass
+                if (v < 0) {
+                    return;
+                }
+                d += 1 + MsdRadixSort.commonPrefixLength(data, lo, hi, d + 1);
+                continue;
+            }
+            sort(data, lo, lt, d);
+            if (v >= 0) {
+                sort(data, lt, gt, d + 1);
+            }
+            // loop on the greater part instead of recursing
+            lo = gt;
+        }
+        InsertionSort.sort(data, lo, hi, d);
+    }
+
+    // character d of s; -1 past the end of s
+    private static int charAt(String s, int d) {
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    private static int medianOfThree(String[] data, int i, int j, int k, int d) {
+        final int a = charAt(data[i], d);
+        final int b = charAt(data[j], d);
+        final int c = charAt(data[k], d);
+        if (a < b) {
+            return b < c ? j : (a < c ? k : i);
+        }
+        return a < c ? i : (b < c ? k : j);
+    }
+
+    private static void swap(String[] data, int i, int j) {
+        final String temp = data[i];
+        data[i] = data[j];
+        data[j] = temp;
+    }
+
+    public static void main(String[] args) throws IOException {
+        try (final BufferedReader bf = new BufferedReader(new InputStreamReader(System.in))) {
+            // read data from standard input
+            String line;
+            final List<String> data = new ArrayList<>();
+            while (true) {
+                line = bf.readLine();
+                if ((line == null) || line.isEmpty()) {
+                    break;
+                }
+                data.add(line);
+            }
+
+            // terminate if no data was read
+            if (data.isEmpty()) {
+                return;
+            }
+
+            // convert list to array
+            final String[] strings = data.toArray(new String[0]);
+
+            // sort
+            sort(strings);
+
+            // output
+            for (String sortedString : strings) {
+                System.out.println(sortedString);
+            }
+        }
+    }
+}
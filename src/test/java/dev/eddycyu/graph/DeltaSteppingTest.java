@@ -0,0 +1,55 @@
+package dev.eddycyu.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class DeltaSteppingTest {
+
+    private static final int[] DELTAS = {1, 3, 25, Integer.MAX_VALUE / 2};
+    private static final int[] THREADS = {1, 2, 4};
+
+    @Test
+    public void matchesDijkstraOnSmallRandomGraphs() {
+        final Random random = new Random(42);
+        for (int test = 0; test < 100; test++) {
+            final int V = 1 + random.nextInt(60);
+            final int[][] matrix = new int[V][V];
+            final int edges = random.nextInt(4 * V);
+            for (int e = 0; e < edges; e++) {
+                matrix[random.nextInt(V)][random.nextInt(V)] = 1 + random.nextInt(20);
+            }
+            final CsrGraph graph = CsrGraph.fromMatrix(matrix);
+            final int source = random.nextInt(V);
+            final int[] expected = Dijkstra.computeShortestPath(matrix, source);
+            for (int delta : DELTAS) {
+                for (int threads : THREADS) {
+                    assertArrayEquals("graph " + test + ", delta " + delta + ", threads " + threads,
+                            expected, DeltaStepping.shortestPath(graph, source, delta, threads));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesDijkstraOnLargeRandomGraph() {
+        // large enough for the frontiers to be relaxed in parallel
+        final CsrGraph graph = CsrGraph.random(50_000, 3, 100, new Random(7));
+        final int[] expected = DijkstraCsr.shortestPath(graph, 0);
+        final int[] deltas = {1, DeltaStepping.defaultDelta(graph), 1000};
+        for (int threads : THREADS) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int delta : deltas) {
+                    assertArrayEquals("delta " + delta + ", threads " + threads,
+                            expected, DeltaStepping.shortestPath(graph, 0, delta, pool));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
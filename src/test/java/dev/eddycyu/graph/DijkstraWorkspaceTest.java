@@ -0,0 +1,64 @@
+package dev.eddycyu.graph;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DijkstraWorkspaceTest {
+
+    private static final int V = 20_000;
+    private static final int QUERIES = 50;
+
+    @Test
+    public void matchesDijkstraCsr() {
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(42));
+        final DijkstraWorkspace workspace = new DijkstraWorkspace(V);
+        final Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            final int source = random.nextInt(V);
+            final int target = random.nextInt(V);
+            final int[] expected = DijkstraCsr.shortestPath(graph, source);
+            assertEquals("query " + i, expected[target], workspace.shortestPath(graph, source, target));
+            // a full query after an early-exit one must not see stale entries
+            workspace.shortestPath(graph, source);
+            for (int v = 0; v < V; v++) {
+                assertEquals("query " + i + ", vertex " + v, expected[v], workspace.distance(v));
+            }
+        }
+    }
+
+    @Test
+    public void queriesDoNotAllocate() {
+        final CsrGraph graph = CsrGraph.random(V, 3, 100, new Random(42));
+        final DijkstraWorkspace workspace = new DijkstraWorkspace(V);
+        final int[] path = new int[V];
+        final int[] sources = new int[QUERIES];
+        final int[] targets = new int[QUERIES];
+        final Random random = new Random(7);
+        for (int i = 0; i < QUERIES; i++) {
+            sources[i] = random.nextInt(V);
+            targets[i] = random.nextInt(V);
+        }
+
+        // JIT compilation can cause one-off allocations in early rounds, so
+        // a single round that allocates nothing shows that the query path
+        // itself does not allocate
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        long minAllocated = Long.MAX_VALUE;
+        for (int round = 0; round < 20 && minAllocated != 0; round++) {
+            final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < QUERIES; i++) {
+                workspace.shortestPath(graph, sources[i], targets[i]);
+                workspace.path(targets[i], path);
+            }
+            minAllocated = Math.min(minAllocated, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+        assertTrue("every round allocated at least " + minAllocated + " bytes", minAllocated == 0);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.eddycyu.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DynamicDijkstraTest {
+
+    @Test
+    public void updatesMatchRecomputation() {
+        final Random random = new Random(42);
+        for (int test = 0; test < 200; test++) {
+            final CsrGraph graph = CsrGraph.random(1 + random.nextInt(300), 1 + random.nextInt(4), 20, random);
+            final int source = random.nextInt(graph.vertexCount());
+            final DynamicDijkstra dynamic = new DynamicDijkstra(graph, source);
+            for (int round = 0; round < 10; round++) {
+                // weights may drop to 0 or rise, and an edge may change twice
+                final int changes = 1 + random.nextInt(8);
+                final int[] edges = new int[changes];
+                final int[] weights = new int[changes];
+                for (int i = 0; i < changes; i++) {
+                    edges[i] = random.nextInt(graph.edgeCount());
+                    weights[i] = random.nextInt(40);
+                }
+                dynamic.update(edges, weights);
+                final int[] expected = DijkstraCsr.shortestPath(graph, source);
+                for (int v = 0; v < expected.length; v++) {
+                    final String where = "test " + test + ", round " + round + ", vertex " + v;
+                    assertEquals(where, expected[v], dynamic.distance(v));
+                    final int predecessor = dynamic.predecessor(v);
+                    if (v == source || expected[v] == Integer.MAX_VALUE) {
+                        assertEquals(where, -1, predecessor);
+                    } else {
+                        assertTrue(where, isTreeEdge(graph, expected, predecessor, v));
+                    }
+                }
+            }
+        }
+    }
+
+    // true if an edge from->to lies on a shortest path
+    private static boolean isTreeEdge(CsrGraph graph, int[] distance, int from, int to) {
+        if (from < 0 || distance[from] == Integer.MAX_VALUE) {
+            return false;
+        }
+        for (int e = graph.offset(from); e < graph.offset(from + 1); e++) {
+            if (graph.target(e) == to && distance[from] + graph.weight(e) == distance[to]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}